@@ -0,0 +1,61 @@
+package Ejercicio;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// La decisión de cada parada (decidirProximoMovimiento) con llamadas encendidas
+// en uno de cada tres pisos. Cada hilo tiene su ascensor, a media altura y
+// subiendo; lo que comparten es el registro de llamadas del controlador.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AscensorBenchmark {
+
+	// Hilos como mucho (un ascensor por hilo)
+	static final int MAX_HILOS = 64;
+
+	@Param({ "21", "200" })
+	public int plantas;
+
+	ControladorEdificio controlador;
+
+	@Setup
+	public void preparar() {
+		controlador = Edificios.nuevo(plantas, MAX_HILOS, "libre");
+		Edificios.llamadasCada(controlador, 3, Direccion.SUBIENDO);
+		Edificios.llamadasCada(controlador, 3, Direccion.BAJANDO);
+	}
+
+	@TearDown
+	public void cerrar() {
+		controlador.getRegistro().cerrar();
+	}
+
+	@State(Scope.Thread)
+	public static class Cabina {
+		Ascensor ascensor;
+
+		@Setup
+		public void preparar(AscensorBenchmark edificio, ThreadParams hilo) {
+			ascensor = edificio.controlador.getAscensores()[hilo.getThreadIndex()];
+			int plantas = edificio.plantas;
+			Edificios.subiendoDesde(ascensor, plantas / 2, plantas - 1);
+			ascensor.seleccionarDestino(1);
+		}
+	}
+
+	@Benchmark
+	public Direccion decidirProximoMovimiento(Cabina cabina) {
+		return cabina.ascensor.decidir();
+	}
+}
@@ -0,0 +1,63 @@
+package Ejercicio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+// Lanza los benchmarks una vez por cada número de hilos y al final resume
+// tiempo por operación y bytes reservados por operación (GCProfiler), para ver
+// de un vistazo cómo escala cada camino con la contención.
+//
+// Uso: java -jar benchmarks.jar --hilos=1,2,4,8,16 --incluir=Benchmark --rapido=false
+//
+// ComparativaServidoresBenchmark solo se lanza si se pide en --incluir.
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		String incluir = Main.opcion(args, "incluir", "Benchmark");
+		boolean rapido = Boolean.parseBoolean(Main.opcion(args, "rapido", "false"));
+
+		List<RunResult> resultados = new ArrayList<>();
+		for (String hilos : Main.opcion(args, "hilos", "1,2,4,8,16").split(",")) {
+			ChainedOptionsBuilder opciones = new OptionsBuilder().include(incluir)
+					.threads(Integer.parseInt(hilos.trim())).addProfiler(GCProfiler.class);
+			if (!incluir.contains("Comparativa")) {
+				opciones.exclude("ComparativaServidores");
+			}
+			if (rapido) {
+				// Para comprobar que todo arranca, no para sacar conclusiones
+				opciones.forks(1).warmupIterations(1).warmupTime(TimeValue.seconds(1)).measurementIterations(2)
+						.measurementTime(TimeValue.seconds(1));
+			}
+			Collection<RunResult> ronda = new Runner(opciones.build()).run();
+			resultados.addAll(ronda);
+		}
+
+		System.out.println();
+		System.out.println(String.format("%-46s %-28s %6s %14s %14s", "Benchmark", "Parámetros", "Hilos", "Tiempo/op",
+				"Bytes/op"));
+		for (RunResult r : resultados) {
+			StringBuilder parametros = new StringBuilder();
+			for (String clave : r.getParams().getParamsKeys()) {
+				parametros.append(clave).append('=').append(r.getParams().getParam(clave)).append(' ');
+			}
+			Result<?> tiempo = r.getPrimaryResult();
+			Result<?> bytes = r.getSecondaryResults().get("gc.alloc.rate.norm");
+			String nombre = r.getParams().getBenchmark();
+			System.out.println(String.format("%-46s %-28s %6d %10.1f %-3s %14s",
+					nombre.substring(nombre.lastIndexOf('.', nombre.lastIndexOf('.') - 1) + 1),
+					parametros.toString().trim(), r.getParams().getThreads(), tiempo.getScore(),
+					tiempo.getScoreUnit().replace("/op", ""),
+					bytes == null ? "n/d" : String.format("%.0f", bytes.getScore())));
+		}
+	}
+}
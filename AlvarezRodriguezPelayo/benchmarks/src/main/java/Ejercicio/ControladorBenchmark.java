@@ -0,0 +1,70 @@
+package Ejercicio;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// Camino de una persona que llama y encuentra ascensor a la primera: registrar
+// la llamada (despacho incluido), coger el lock del piso y buscar sitio. Todos
+// los hilos usan la planta baja, así que con más hilos se mide la contención.
+//
+// Hay 4 ascensores parados en la planta baja subiendo (32 plazas): con más de 32
+// hilos alguno esperaría para siempre.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ControladorBenchmark {
+
+	@Param({ "libre", "eta" })
+	public String despacho;
+
+	ControladorEdificio controlador;
+
+	@Setup
+	public void preparar() {
+		controlador = Edificios.nuevo(ControladorEdificio.PLANTAS, 4, despacho);
+		for (Ascensor ascensor : controlador.getAscensores()) {
+			Edificios.subiendoDesde(ascensor, 0, ControladorEdificio.PLANTAS - 1);
+		}
+	}
+
+	@TearDown
+	public void cerrar() {
+		controlador.getRegistro().cerrar();
+	}
+
+	@State(Scope.Thread)
+	public static class Pasajero {
+		Persona persona;
+
+		@Setup
+		public void preparar(ControladorBenchmark edificio, ThreadParams hilo) {
+			persona = Edificios.persona(edificio.controlador, hilo.getThreadIndex() + 1);
+		}
+	}
+
+	@Benchmark
+	public Ascensor llamarYEsperarAscensor(Pasajero pasajero) throws InterruptedException {
+		Ascensor ascensor = controlador.llamarYEsperarAscensor(pasajero.persona, 0, Direccion.SUBIENDO);
+		ascensor.liberarPlaza();
+		return ascensor;
+	}
+
+	@Benchmark
+	public Ascensor buscarAscensorEnPiso() {
+		Ascensor ascensor = controlador.buscarAscensorEnPiso(0, Direccion.SUBIENDO, ControladorEdificio.PLANTAS - 1);
+		if (ascensor != null) {
+			ascensor.liberarPlaza();
+		}
+		return ascensor;
+	}
+}
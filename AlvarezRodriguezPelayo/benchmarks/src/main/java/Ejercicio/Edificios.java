@@ -0,0 +1,40 @@
+package Ejercicio;
+
+import java.util.SplittableRandom;
+
+// Edificios de prueba para los benchmarks: ascensores registrados pero sin hilo,
+// colocados a mano con la misma lógica que usan al moverse (paso/avanzarPiso).
+final class Edificios {
+
+	private Edificios() {
+	}
+
+	static ControladorEdificio nuevo(int plantas, int numAscensores, String despacho) {
+		ControladorEdificio controlador = new ControladorEdificio(plantas, numAscensores,
+				DispatchStrategy.porNombre(despacho), new RegistroSimulacion(NivelRegistro.APAGADO));
+		for (int i = 0; i < numAscensores; i++) {
+			controlador.registrarAscensor(i, new Ascensor(i, controlador));
+		}
+		return controlador;
+	}
+
+	// Deja el ascensor en 'piso' SUBIENDO, con un destino interno por encima
+	static void subiendoDesde(Ascensor ascensor, int piso, int destino) {
+		ascensor.seleccionarDestino(destino);
+		ascensor.decidir();
+		for (int p = ascensor.getPisoActual(); p < piso; p++) {
+			ascensor.avanzarPiso();
+		}
+	}
+
+	// Enciende los botones de 'dir' de uno de cada 'cada' pisos
+	static void llamadasCada(ControladorEdificio controlador, int cada, Direccion dir) {
+		for (int piso = 0; piso < controlador.getPlantas(); piso += cada) {
+			controlador.hacerLlamada(piso, dir);
+		}
+	}
+
+	static Persona persona(ControladorEdificio controlador, int numero) {
+		return new Persona(numero, controlador, new SplittableRandom(numero));
+	}
+}
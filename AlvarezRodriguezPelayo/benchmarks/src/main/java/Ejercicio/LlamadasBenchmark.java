@@ -0,0 +1,73 @@
+package Ejercicio;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// Operaciones sobre los botones de piso: encender y apagar una llamada (con el
+// despacho y el aviso a los ascensores) y las consultas que hace cada ascensor
+// en cada parada. Las llamadas de bajar quedan encendidas de fondo.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LlamadasBenchmark {
+
+	@Param({ "libre", "eta" })
+	public String despacho;
+
+	@Param({ "21", "200" })
+	public int plantas;
+
+	ControladorEdificio controlador;
+
+	@Setup
+	public void preparar() {
+		controlador = Edificios.nuevo(plantas, 4, despacho);
+		Edificios.llamadasCada(controlador, 5, Direccion.BAJANDO);
+	}
+
+	@TearDown
+	public void cerrar() {
+		controlador.getRegistro().cerrar();
+	}
+
+	@State(Scope.Thread)
+	public static class Hilo {
+		SplittableRandom rand;
+		Ascensor ascensor;
+
+		@Setup
+		public void preparar(LlamadasBenchmark edificio, ThreadParams hilo) {
+			rand = new SplittableRandom(hilo.getThreadIndex());
+			Ascensor[] ascensores = edificio.controlador.getAscensores();
+			ascensor = ascensores[hilo.getThreadIndex() % ascensores.length];
+		}
+	}
+
+	@Benchmark
+	public void encenderYAtender(Hilo hilo) {
+		int piso = hilo.rand.nextInt(plantas);
+		controlador.hacerLlamada(piso, Direccion.SUBIENDO);
+		controlador.atenderLlamada(piso, Direccion.SUBIENDO);
+	}
+
+	@Benchmark
+	public boolean hayLlamadasPara(Hilo hilo) {
+		return controlador.hayLlamadasPara(hilo.ascensor);
+	}
+
+	@Benchmark
+	public int numeroLlamadasAsignadas(Hilo hilo) {
+		return controlador.getNumeroLlamadasAsignadas(hilo.ascensor);
+	}
+}
@@ -0,0 +1,146 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Comparativa de los modos de Server con muchos clientes a la vez: cada
+// operación lanza 'clientes' conexiones simultáneas (hilos virtuales) que hacen
+// una sesión de eco cada una, y mide cuánto tarda en terminar la última.
+//
+// El servidor corre en OTRO proceso (java -cp <este classpath> unidad3.echo.Server)
+// para que clientes y servidor no compartan el límite de descriptores: con 10k
+// clientes cada lado tiene 10k sockets abiertos.
+//
+// Una sesión que falla (conexión rechazada o reiniciada porque la cola de
+// accept del servidor se ha desbordado, o sin respuesta en TIMEOUT_MS) no
+// tumba la medida: se cuenta y se imprime al final de cada iteración.
+//
+// No se lanza por defecto desde Benchmarks (es larga y ya crea sus hilos):
+// java -jar benchmarks.jar --incluir=ComparativaServidores --hilos=1
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComparativaServidoresBenchmark {
+
+	static final int LINEAS = 10;
+	static final int TIMEOUT_MS = 30_000;
+
+	@Param({ "100", "1000", "10000" })
+	public int clientes;
+
+	@Param({ "pool", "virtuales", "nio" })
+	public String servidor;
+
+	private final AtomicInteger fallidas = new AtomicInteger();
+	private Process proceso;
+	private InetSocketAddress direccion;
+	private final byte[] peticion = "0123456789abcdef0123456789abcdef\n".repeat(LINEAS)
+			.getBytes(StandardCharsets.UTF_8);
+
+	@Setup
+	public void arrancar() throws IOException, InterruptedException {
+		int puerto;
+		try (ServerSocket libre = new ServerSocket(0)) {
+			puerto = libre.getLocalPort();
+		}
+		String java = ProcessHandle.current().info().command().orElse("java");
+		proceso = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Server.class.getName(),
+				"--modo=" + servidor, "--puerto=" + puerto).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		direccion = new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto);
+
+		// Espera a que el servidor escuche
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (true) {
+			try (Socket prueba = new Socket()) {
+				prueba.connect(direccion);
+				return;
+			} catch (IOException e) {
+				if (System.nanoTime() > limite || !proceso.isAlive()) {
+					throw new IOException("El servidor (" + servidor + ") no ha arrancado", e);
+				}
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void contarFallidas() {
+		int n = fallidas.getAndSet(0);
+		if (n > 0) {
+			System.out.println("  " + servidor + ": " + n + " de " + clientes + " sesiones fallidas");
+		}
+	}
+
+	@TearDown
+	public void parar() throws InterruptedException {
+		proceso.destroy();
+		proceso.waitFor();
+	}
+
+	// Devuelve los bytes recibidos (para que JMH no descarte nada)
+	@Benchmark
+	public long clientesConcurrentes() throws Exception {
+		List<Future<Long>> sesiones = new ArrayList<>(clientes);
+		try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < clientes; i++) {
+				sesiones.add(hilos.submit(this::sesion));
+			}
+			long total = 0;
+			for (Future<Long> sesion : sesiones) {
+				total += sesion.get();
+			}
+			return total;
+		}
+	}
+
+	private long sesion() {
+		try (Socket socket = new Socket()) {
+			socket.connect(direccion, TIMEOUT_MS);
+			socket.setSoTimeout(TIMEOUT_MS);
+			socket.getOutputStream().write(peticion);
+			socket.shutdownOutput();
+
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[1024];
+			long recibidos = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				recibidos += n;
+			}
+			return recibidos;
+		} catch (IOException e) {
+			fallidas.incrementAndGet();
+			return 0;
+		}
+	}
+}
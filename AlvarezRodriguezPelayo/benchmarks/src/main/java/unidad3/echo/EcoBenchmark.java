@@ -0,0 +1,129 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Sesión completa contra el servidor de eco por loopback: conectar, mandar
+// 'lineas' líneas, cerrar la escritura y leer la respuesta hasta EOF. Se lee
+// hasta EOF y no línea a línea para no depender de cuándo vacía ServiceTask su
+// salida. 'servidor' es el modo de Server: pool (ServiceTask), crudo
+// (ServicioCrudo sobre ServidorVirtual) o nio (ServidorNio).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class EcoBenchmark {
+
+	@Param({ "1", "100" })
+	public int lineas;
+
+	@Param({ "pool", "crudo", "nio" })
+	public String servidor;
+
+	private ServerSocket serverSocket;
+	private ExecutorService service;
+	private final MetricasServidor metricas = new MetricasServidor(0);
+	private ServidorNio servidorNio;
+	private ServidorVirtual servidorCrudo;
+	private int puerto;
+	private byte[] peticion;
+
+	@Setup
+	public void arrancar() throws IOException {
+		peticion = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcde\n".repeat(lineas)
+				.getBytes(StandardCharsets.UTF_8);
+		if (servidor.equals("nio")) {
+			servidorNio = new ServidorNio(0, 1);
+			puerto = servidorNio.getPuerto();
+			Thread aceptador = new Thread(() -> {
+				try {
+					servidorNio.ejecutar();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}, "eco-aceptador");
+			aceptador.setDaemon(true);
+			aceptador.start();
+			return;
+		}
+		if (servidor.equals("crudo")) {
+			servidorCrudo = new ServidorVirtual(0, 10_000, ServidorVirtual.Servicio.CRUDO);
+			puerto = servidorCrudo.getPuerto();
+			Thread aceptador = new Thread(() -> {
+				try {
+					servidorCrudo.ejecutar();
+				} catch (IOException | InterruptedException e) {
+					e.printStackTrace();
+				}
+			}, "eco-aceptador");
+			aceptador.setDaemon(true);
+			aceptador.start();
+			return;
+		}
+		serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+		puerto = serverSocket.getLocalPort();
+		// Igual que Server, pero sin límite de hilos para no medir la cola del pool
+		service = Executors.newCachedThreadPool();
+		Thread aceptador = new Thread(() -> {
+			try {
+				while (true) {
+					Socket socket = serverSocket.accept();
+					service.submit(new ServiceTask(socket, metricas)::run);
+				}
+			} catch (IOException e) {
+				// serverSocket cerrado en parar()
+			}
+		}, "eco-aceptador");
+		aceptador.setDaemon(true);
+		aceptador.start();
+	}
+
+	@TearDown
+	public void parar() throws IOException {
+		if (servidorNio != null) {
+			servidorNio.close();
+			return;
+		}
+		if (servidorCrudo != null) {
+			servidorCrudo.close();
+			return;
+		}
+		serverSocket.close();
+		service.shutdownNow();
+	}
+
+	@Benchmark
+	public long sesion() throws IOException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), puerto)) {
+			OutputStream out = socket.getOutputStream();
+			out.write(peticion);
+			socket.shutdownOutput();
+
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[8192];
+			long recibidos = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				recibidos += n;
+			}
+			return recibidos;
+		}
+	}
+}
@@ -1,7 +1,8 @@
 package Ejercicio;
 
-import java.util.Set;
-import java.util.TreeSet;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.BitSet;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -9,27 +10,75 @@ import java.util.concurrent.locks.ReentrantLock;
 
 public class Ascensor implements Runnable {
 
+	// Tiempo que tarda en recorrer un piso (por defecto)
+	public static final long MS_POR_PISO = 500;
+
 	private final int id;
 	private final ControladorEdificio controlador;
+	// Capacidad, tiempos y plantas en las que para
+	private final ConfiguracionAscensor config;
 
 	// --- Estado Propio del Ascensor ---
-	private int pisoActual = 0; // Empieza en la planta baja
+	private int pisoActual; // Empieza en su planta más baja (la planta baja salvo zonas)
 	private Direccion sentido = Direccion.PARADO;
-	private final Semaphore capacidad = new Semaphore(8);
+	private final Semaphore capacidad;
+	// Lo último que hizo paso(): si abrió puertas o arrancó desde parado, el
+	// siguiente tramo cuesta más que un piso (ver msProximoTramo)
+	private boolean abrioPuertas = false;
+	private boolean arranca = false;
+	// Para la utilización (ver MetricasViaje)
+	private int pisosRecorridos = 0;
+	private long msOcupado = 0; // moviéndose o parado con gente (puertas incluidas)
 
 	// Destinos seleccionados por la gente DENTRO del ascensor
-	// Usamos TreeSet para que estén ordenados automáticamente
-	private final Set<Integer> destinosInternos = new TreeSet<>();
+	// Un bit por piso: ordenados, y buscar el siguiente por encima/debajo no reserva memoria
+	private final BitSet destinosInternos = new BitSet();
+	// Orden en que piensa hacer sus paradas (LOOK), rehecho en cada decisión
+	private final Itinerario itinerario;
+
+	// Lock del estado (piso, sentido, destinos). ReentrantLock y no synchronized:
+	// con hilos virtuales un monitor bloqueado "clava" el hilo portador.
+	private final ReentrantLock lockEstado = Instrumentacion.lock("lockEstado");
+
+	// Foto de piso, sentido, ocupantes y puertas para quien mira desde fuera
+	// (personas esperando, despacho, interfaz) sin coger lockEstado: un long que
+	// se lee de una vez, así que piso y sentido nunca salen de momentos distintos.
+	// Piso, sentido y puertas solo los cambia el hilo del ascensor (o el motor de
+	// eventos); los ocupantes, las personas al subir y bajar. Por eso se publica
+	// con CAS y cada uno reescribe solo lo suyo.
+	private static final VarHandle ESTADO;
+	static {
+		try {
+			ESTADO = MethodHandles.lookup().findVarHandle(Ascensor.class, "estado", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	private volatile long estado;
 
 	// --- Sincronización Interna (para gente DENTRO) ---
 	// Lock y Conditions para que las personas DENTRO esperen su piso de destino
-	private final ReentrantLock lockParadasInternas = new ReentrantLock();
-	private final Condition[] paradasInternas = new Condition[ControladorEdificio.PLANTAS];
+	private final ReentrantLock lockParadasInternas = Instrumentacion.lock("lockParadasInternas");
+	private final Condition[] paradasInternas;
 
 	public Ascensor(int id, ControladorEdificio controlador) {
+		this(id, controlador, MS_POR_PISO);
+	}
+
+	public Ascensor(int id, ControladorEdificio controlador, long msPorPiso) {
+		this(id, controlador, ConfiguracionAscensor.todasLasPlantas(controlador.getPlantas(), msPorPiso));
+	}
+
+	public Ascensor(int id, ControladorEdificio controlador, ConfiguracionAscensor config) {
 		this.id = id;
 		this.controlador = controlador;
-		for (int i = 0; i < ControladorEdificio.PLANTAS; i++) {
+		this.config = config;
+		this.capacidad = new Semaphore(config.capacidad());
+		this.pisoActual = config.pisoMasBajo();
+		this.estado = EstadoAscensor.empaquetar(pisoActual, sentido, 0, false);
+		this.itinerario = new Itinerario(controlador.getPlantas());
+		this.paradasInternas = new Condition[controlador.getPlantas()];
+		for (int i = 0; i < paradasInternas.length; i++) {
 			paradasInternas[i] = lockParadasInternas.newCondition();
 		}
 	}
@@ -37,24 +86,31 @@ public class Ascensor implements Runnable {
 	// --- Métodos llamados por la Persona ---
 
 	public void seleccionarDestino(int pisoDestino) {
-		synchronized (this) {
-			destinosInternos.add(pisoDestino);
+		lockEstado.lock();
+		try {
+			destinosInternos.set(pisoDestino);
+		} finally {
+			lockEstado.unlock();
 		}
 
 		// Si el ascensor estaba PARADO, este nuevo destino lo "despierta"
-		// ¡ARREGLADO! Llama al método público del controlador.
-		controlador.notificarNuevoTrabajo();
+		// (solo a este ascensor, no a todos los parados)
+		controlador.notificarNuevoTrabajo(this);
 	}
 
 	public void esperarLlegadaADestino(int pisoDestino) throws InterruptedException {
+		long inicio = Instrumentacion.ESPERAR_DESTINO.empezar();
 		lockParadasInternas.lock();
 		try {
-			// Espera hasta que el ascensor llegue al piso Y avise (signalAll)
-			while (this.pisoActual != pisoDestino) {
+			// Espera hasta que el ascensor pare en el piso Y avise (signalAll). Se mira
+			// el destino y no 'pisoActual': cuando el hilo despierta, un ascensor
+			// rápido puede haber salido ya de ese piso.
+			while (tieneDestino(pisoDestino)) {
 				paradasInternas[pisoDestino].await();
 			}
 		} finally {
 			lockParadasInternas.unlock();
+			Instrumentacion.ESPERAR_DESTINO.terminar(inicio);
 		}
 	}
 
@@ -64,160 +120,351 @@ public class Ascensor implements Runnable {
 	public void run() {
 		try {
 			while (true) {
-				// 1. Comprobar si la simulación está pausada
-				controlador.comprobarPausa();
-
-				// 2. Lógica de parada: Bajar y Subir personas
-				// Estas acciones deben ocurrir ANTES de decidir el próximo movimiento
-				bajarPersonas();
-				subirPersonas();
-
-				// 3. Decidir el próximo estado (moverse o pararse)
-				// Usamos synchronized(this) para proteger el acceso a 'sentido', 'pisoActual' y
-				// 'destinosInternos'
-				synchronized (this) {
-					decidirProximoMovimiento();
-				}
+				// 1. Comprobar si la simulación está pausada (o avanzando paso a paso)
+				controlador.comprobarPausa(this);
+
+				// 2 y 3. Parada (bajar/subir personas) y decisión del próximo movimiento
+				paso();
 
 				// 4. Actuar (moverse o esperar)
 				if (sentido != Direccion.PARADO) {
 					simularMovimiento();
 				} else {
 					// Si está parado, espera por una nueva llamada (interna o externa)
-					controlador.imprimirEstado(
-							String.format("Ascensor %d PARADO en piso %d. Esperando llamadas.", id, pisoActual));
-					controlador.esperarNuevaLlamada();
+					controlador.getRegistro().registrar(TipoRegistro.ASCENSOR_PARADO, id, pisoActual);
+					controlador.esperarNuevaLlamada(this);
 				}
 			}
 		} catch (InterruptedException e) {
-			System.out.println("Ascensor " + id + " interrumpido.");
+			// Es como se para: shutdownNow() del pool al acabar la simulación
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Un ciclo de la lógica del ascensor en el piso actual. Lo usan tanto el hilo
+	// (run) como el motor de eventos discretos (SimuladorEventos).
+	Direccion paso() {
+		boolean estabaParado = sentido == Direccion.PARADO;
+
+		// Primero bajan los que han llegado a su destino
+		boolean dejo = bajarPersonas();
+		abrioPuertas = dejo;
+
+		// Decidir el próximo estado (moverse o pararse) ANTES de recoger a nadie:
+		// solo sube quien va en el sentido en el que el ascensor va a salir.
+		decidir();
+
+		// Recoger a la gente que espera aquí en ese sentido
+		long inicio = Instrumentacion.SUBIR_PERSONAS.empezar();
+		boolean recogio;
+		try {
+			recogio = subirPersonas();
+		} finally {
+			Instrumentacion.SUBIR_PERSONAS.terminar(inicio);
+		}
+
+		abrioPuertas = dejo || recogio;
+		arranca = abrioPuertas || estabaParado;
+		return sentido;
+	}
+
+	// Tiempo hasta llegar al siguiente piso tras el último paso(): puertas si ha
+	// parado a dejar o recoger, y arranque/frenada si sale de una parada
+	long msProximoTramo() {
+		return config.msPorPiso() + (abrioPuertas ? config.msPuertas() : 0) + (arranca ? config.msAceleracion() : 0);
+	}
+
+	// Usamos lockEstado para proteger el acceso a 'sentido', 'pisoActual' y
+	// 'destinosInternos'
+	Direccion decidir() {
+		lockEstado.lock();
+		try {
+			decidirProximoMovimiento();
+			publicar(abrioPuertas);
+			return sentido;
+		} finally {
+			lockEstado.unlock();
 		}
 	}
 
-	private void bajarPersonas() {
-		if (destinosInternos.contains(pisoActual)) {
+	private boolean bajarPersonas() {
+		if (tieneDestino(pisoActual)) {
 			lockParadasInternas.lock();
 			try {
+				// Se quita el destino ANTES de avisar (bajo el mismo lock que usan para esperar)
+				lockEstado.lock();
+				try {
+					destinosInternos.clear(pisoActual);
+				} finally {
+					lockEstado.unlock();
+				}
 				// Avisa a todas las personas DENTRO que querían este piso
 				paradasInternas[pisoActual].signalAll();
-				controlador.imprimirEstado(String.format("Ascensor %d deja pasajeros en piso %d", id, pisoActual));
+				controlador.getRegistro().registrar(TipoRegistro.ASCENSOR_DEJA, id, pisoActual);
 			} finally {
 				lockParadasInternas.unlock();
 			}
-			destinosInternos.remove(pisoActual);
+			return true;
 		}
+		return false;
 	}
 
-	private void subirPersonas() {
-		boolean hayLlamadaSubir = controlador.getLlamadasSubir().contains(pisoActual);
-		boolean hayLlamadaBajar = controlador.getLlamadasBajar().contains(pisoActual);
+	private boolean subirPersonas() {
+		// Lleno no abre para recoger: la llamada sigue encendida para otro (o para
+		// él, cuando haya dejado a alguien). Con despacho por destino, los que le
+		// esperan aquí no pueden esperar a que se vacíe: pasan a otro ascensor
+		if (capacidad.availablePermits() == 0) {
+			if (controlador.isPorPasajero() && sentido != Direccion.PARADO
+					&& controlador.getRecogidas(this).esperan(pisoActual, sentido) > 0) {
+				controlador.devolverPasajeros(this, pisoActual);
+			}
+			return false;
+		}
+		boolean hayLlamadaSubir = controlador.esLlamadaPara(this, pisoActual, Direccion.SUBIENDO);
+		boolean hayLlamadaBajar = controlador.esLlamadaPara(this, pisoActual, Direccion.BAJANDO);
+
+		// De camino: si pasa por una llamada de su mismo sentido y le queda sitio, la
+		// recoge aunque el despacho se la hubiera dado a otro ascensor. Con despacho
+		// por destino no: cada ascensor recoge solo a los suyos
+		if (sentido != Direccion.PARADO && !controlador.isPorPasajero() && config.sirve(pisoActual)
+				&& controlador.hayLlamada(pisoActual, sentido)) {
+			hayLlamadaSubir |= sentido == Direccion.SUBIENDO;
+			hayLlamadaBajar |= sentido == Direccion.BAJANDO;
+		}
 
 		if ((sentido == Direccion.SUBIENDO && hayLlamadaSubir) || (sentido == Direccion.BAJANDO && hayLlamadaBajar)
 				|| (sentido == Direccion.PARADO && (hayLlamadaSubir || hayLlamadaBajar))) {
 
 			// Si estaba parado y recoge gente, define su sentido
 			if (sentido == Direccion.PARADO) {
-				sentido = hayLlamadaSubir ? Direccion.SUBIENDO : Direccion.BAJANDO;
+				lockEstado.lock();
+				try {
+					sentido = hayLlamadaSubir ? Direccion.SUBIENDO : Direccion.BAJANDO;
+				} finally {
+					lockEstado.unlock();
+				}
 			}
+			// Puertas abiertas y sentido definitivo ANTES de avisar a los de fuera:
+			// es lo que miran para subir
+			publicar(true);
 
-			controlador.imprimirEstado(
-					String.format("Ascensor %d para en %d a recoger gente (%s)", id, pisoActual, sentido));
+			controlador.getRegistro().registrar(TipoRegistro.ASCENSOR_RECOGE, id, pisoActual, sentido.ordinal());
 
 			// Atiende la llamada (apaga el "botón" de llamada)
 			controlador.atenderLlamada(pisoActual, sentido);
 
 			// Despierta a las personas que esperan FUERA en este piso
-			controlador.notificarLlegadaAscensor(pisoActual);
+			controlador.notificarLlegadaAscensor(this, pisoActual);
+			return true;
 		}
+		return false;
 	}
 
 	private void simularMovimiento() throws InterruptedException {
-		// Simula el tiempo que tarda en moverse entre pisos
-		TimeUnit.MILLISECONDS.sleep(500);
+		// Simula el tiempo que tarda en moverse entre pisos (y en la parada, si la hubo)
+		TimeUnit.MILLISECONDS.sleep(msProximoTramo());
+		avanzarPiso();
+	}
 
-		synchronized (this) {
+	// Cambia de piso según el sentido actual (el tiempo lo pone quien llama)
+	void avanzarPiso() {
+		lockEstado.lock();
+		try {
 			pisoActual += (sentido == Direccion.SUBIENDO) ? 1 : -1;
-			controlador
-					.imprimirEstado(String.format("... Ascensor %d llega a piso %d (%s) ...", id, pisoActual, sentido));
+			pisosRecorridos++;
+			msOcupado += msProximoTramo();
+			publicar(false);
+		} finally {
+			lockEstado.unlock();
+		}
+		// El log fuera del lock: nada de E/S con el estado del ascensor bloqueado
+		controlador.getRegistro().registrar(TipoRegistro.ASCENSOR_LLEGA, id, pisoActual, sentido.ordinal());
+	}
+
+	// Vuelca piso, sentido y puertas en 'estado' sin tocar los ocupantes
+	private void publicar(boolean puertasAbiertas) {
+		long actual;
+		long nuevo;
+		do {
+			actual = estado;
+			nuevo = EstadoAscensor.empaquetar(pisoActual, sentido, EstadoAscensor.ocupantes(actual), puertasAbiertas);
+			if (nuevo == actual) {
+				return; // lo normal en decidir(): nada que publicar, ni CAS
+			}
+		} while (!ESTADO.compareAndSet(this, actual, nuevo));
+	}
+
+	private void sumarOcupantes(int delta) {
+		long actual;
+		do {
+			actual = estado;
+		} while (!ESTADO.compareAndSet(this, actual,
+				EstadoAscensor.conOcupantes(actual, EstadoAscensor.ocupantes(actual) + delta)));
+	}
+
+	// --- Plazas (las usan las personas al subir y bajar) ---
+
+	// Coge una plaza si queda alguna
+	public boolean ocuparPlaza() {
+		if (!capacidad.tryAcquire()) {
+			return false;
 		}
+		sumarOcupantes(1);
+		return true;
 	}
 
-	// La "IA" del ascensor. Protegida por synchronized(this)
+	public void liberarPlaza() {
+		sumarOcupantes(-1);
+		capacidad.release();
+	}
+
+	// La "IA" del ascensor. Protegida por lockEstado
 	private void decidirProximoMovimiento() {
 		if (sentido == Direccion.PARADO) {
 			// Si estaba parado, busca CUALQUIER trabajo
 			if (!destinosInternos.isEmpty()) {
 				// Prioridad 1: Destinos internos
-				int proximoDestino = destinosInternos.iterator().next();
+				int proximoDestino = destinosInternos.nextSetBit(0);
 				sentido = (proximoDestino > pisoActual) ? Direccion.SUBIENDO : Direccion.BAJANDO;
-			} else if (!controlador.getLlamadasSubir().isEmpty()) {
-				// Prioridad 2: Llamadas de subir
-				int proximaLlamada = controlador.getLlamadasSubir().iterator().next();
-				sentido = (proximaLlamada > pisoActual) ? Direccion.SUBIENDO : Direccion.BAJANDO;
-			} else if (!controlador.getLlamadasBajar().isEmpty()) {
-				// Prioridad 3: Llamadas de bajar
-				int proximaLlamada = controlador.getLlamadasBajar().iterator().next();
-				sentido = (proximaLlamada > pisoActual) ? Direccion.SUBIENDO : Direccion.BAJANDO;
+			} else if (controlador.esLlamadaPara(this, pisoActual, Direccion.SUBIENDO)) {
+				// Prioridad 2: Alguien espera aquí mismo
+				sentido = Direccion.SUBIENDO;
+			} else if (controlador.esLlamadaPara(this, pisoActual, Direccion.BAJANDO)) {
+				sentido = Direccion.BAJANDO;
 			} else {
-				sentido = Direccion.PARADO; // Sigue parado, no hay trabajo
+				// Prioridad 3: Llamadas de subir; Prioridad 4: Llamadas de bajar
+				// (solo las que el despacho deja atender a este ascensor)
+				int proximaLlamada = controlador.siguienteLlamadaPara(this, Direccion.SUBIENDO, 0);
+				if (proximaLlamada < 0) {
+					proximaLlamada = controlador.siguienteLlamadaPara(this, Direccion.BAJANDO, 0);
+				}
+				if (proximaLlamada >= 0) {
+					sentido = (proximaLlamada > pisoActual) ? Direccion.SUBIENDO : Direccion.BAJANDO;
+				}
 			}
 			return;
 		}
 
-		// Si ya estaba en movimiento (SUBIENDO)
-		if (sentido == Direccion.SUBIENDO) {
-			// 1. Hay destinos internos por encima?
-			Integer proximoDestino = destinosInternos.stream().filter(p -> p > pisoActual).findFirst().orElse(null);
-			if (proximoDestino != null)
-				return; // Sigue subiendo
+		// Si ya estaba en movimiento, va hacia la primera parada del plan: sigue
+		// mientras le quede algo en su sentido, si no da la vuelta, y si no hay
+		// nada, para. Solo hace falta esa parada, no el plan entero
+		sentido = Itinerario.primeraSalida(controlador, this, pisoActual, sentido, destinosInternos,
+				capacidad.availablePermits() > 0);
+	}
 
-			// 2. Hay llamadas externas por encima?
-			Integer proximaLlamada = controlador.getLlamadasSubir().stream().filter(p -> p > pisoActual).findFirst()
-					.orElse(null);
-			if (proximaLlamada != null)
-				return; // Sigue subiendo
+	// --- Getters para estado ---
+	public int getIdAscensor() {
+		return id;
+	}
 
-			// 3. No hay más trabajo "arriba". Busca trabajo "abajo" o para.
-			if (!destinosInternos.isEmpty() || controlador.hayLlamadas()) {
-				sentido = Direccion.BAJANDO; // Cambia de sentido
-			} else {
-				sentido = Direccion.PARADO;
-			}
+	public long getMsPorPiso() {
+		return config.msPorPiso();
+	}
+
+	public ConfiguracionAscensor getConfiguracion() {
+		return config;
+	}
+
+	// El ascensor para en esta planta (no es de otra zona)
+	public boolean sirve(int piso) {
+		return config.sirve(piso);
+	}
+
+	// Foto empaquetada (leer con los métodos estáticos de EstadoAscensor)
+	public long getEstadoEmpaquetado() {
+		return estado;
+	}
+
+	public EstadoAscensor getEstado() {
+		return EstadoAscensor.de(estado);
+	}
+
+	// Sin lock: salen de la foto. Para piso y sentido juntos, getEstadoEmpaquetado()
+	public int getPisoActual() {
+		return EstadoAscensor.piso(estado);
+	}
+
+	public Direccion getSentido() {
+		return EstadoAscensor.sentido(estado);
+	}
+
+	public int getOcupantes() {
+		return EstadoAscensor.ocupantes(estado);
+	}
+
+	public int getPisosRecorridos() {
+		lockEstado.lock();
+		try {
+			return pisosRecorridos;
+		} finally {
+			lockEstado.unlock();
 		}
+	}
 
-		// Si ya estaba en movimiento (BAJANDO)
-		if (sentido == Direccion.BAJANDO) {
-			// 1. Hay destinos internos por debajo?
-			Integer proximoDestino = destinosInternos.stream().filter(p -> p < pisoActual).findFirst().orElse(null);
-			if (proximoDestino != null)
-				return; // Sigue bajando
+	public long getMsOcupado() {
+		lockEstado.lock();
+		try {
+			return msOcupado;
+		} finally {
+			lockEstado.unlock();
+		}
+	}
 
-			// 2. Hay llamadas externas por debajo?
-			Integer proximaLlamada = controlador.getLlamadasBajar().stream().filter(p -> p < pisoActual).findFirst()
-					.orElse(null);
-			if (proximaLlamada != null)
-				return; // Sigue bajando
+	public int getNumeroParadas() {
+		lockEstado.lock();
+		try {
+			return destinosInternos.cardinality();
+		} finally {
+			lockEstado.unlock();
+		}
+	}
 
-			// 3. No hay más trabajo "abajo". Busca trabajo "arriba" o para.
-			if (!destinosInternos.isEmpty() || controlador.hayLlamadas()) {
-				sentido = Direccion.SUBIENDO; // Cambia de sentido
-			} else {
-				sentido = Direccion.PARADO;
+	// Parada interna más alejada en el sentido actual (o el piso actual si no hay)
+	public int getParadaMasLejana() {
+		lockEstado.lock();
+		try {
+			if (destinosInternos.isEmpty() || sentido == Direccion.PARADO) {
+				return pisoActual;
 			}
+			return (sentido == Direccion.SUBIENDO) ? destinosInternos.length() - 1 : destinosInternos.nextSetBit(0);
+		} finally {
+			lockEstado.unlock();
 		}
 	}
 
-	// --- Getters para estado ---
-	public int getIdAscensor() {
-		return id;
+	// Copia del plan de paradas (para el log y la depuración). Se monta aquí, con
+	// el estado de ahora: decidir() no lo necesita entero
+	public String getItinerario() {
+		lockEstado.lock();
+		try {
+			if (sentido == Direccion.PARADO) {
+				itinerario.vaciar();
+			} else {
+				itinerario.planificar(controlador, this, pisoActual, sentido, destinosInternos,
+						capacidad.availablePermits() > 0);
+			}
+			return itinerario.toString();
+		} finally {
+			lockEstado.unlock();
+		}
 	}
 
-	public synchronized int getPisoActual() {
-		return pisoActual;
+	public boolean tieneDestinos() {
+		lockEstado.lock();
+		try {
+			return !destinosInternos.isEmpty();
+		} finally {
+			lockEstado.unlock();
+		}
 	}
 
-	public synchronized Direccion getSentido() {
-		return sentido;
+	public boolean tieneDestino(int piso) {
+		lockEstado.lock();
+		try {
+			return destinosInternos.get(piso);
+		} finally {
+			lockEstado.unlock();
+		}
 	}
 
 	public Semaphore getCapacidad() {
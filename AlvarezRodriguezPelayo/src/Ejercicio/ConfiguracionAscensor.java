@@ -0,0 +1,51 @@
+package Ejercicio;
+
+import java.util.BitSet;
+
+// Características de un ascensor (ver ConfiguracionEdificio). Los tiempos en ms:
+// - msPorPiso: recorrer un piso a velocidad de crucero
+// - msAceleracion: lo que se pierde al arrancar y frenar en cada parada
+// - msPuertas: abrir, entrar/salir y cerrar cuando para a dejar o recoger
+// 'pisos' son las plantas en las que para (zonas, ascensores exprés); por las
+// demás pasa de largo.
+public record ConfiguracionAscensor(int capacidad, long msPorPiso, long msAceleracion, long msPuertas, BitSet pisos) {
+
+	public static final int CAPACIDAD = 8;
+
+	public ConfiguracionAscensor {
+		if (capacidad < 1) {
+			throw new IllegalArgumentException("La capacidad debe ser al menos 1: " + capacidad);
+		}
+		if (msPorPiso < 0 || msAceleracion < 0 || msPuertas < 0) {
+			throw new IllegalArgumentException("Los tiempos no pueden ser negativos");
+		}
+		if (pisos.cardinality() < 2) {
+			throw new IllegalArgumentException("Un ascensor tiene que parar en al menos dos plantas: " + pisos);
+		}
+		pisos = (BitSet) pisos.clone();
+	}
+
+	// Ascensor de siempre: capacidad 8, para en todas las plantas, sin tiempos de parada
+	public static ConfiguracionAscensor todasLasPlantas(int plantas, long msPorPiso) {
+		BitSet pisos = new BitSet(plantas);
+		pisos.set(0, plantas);
+		return new ConfiguracionAscensor(CAPACIDAD, msPorPiso, 0, 0, pisos);
+	}
+
+	public boolean sirve(int piso) {
+		return pisos.get(piso);
+	}
+
+	public int pisoMasBajo() {
+		return pisos.nextSetBit(0);
+	}
+
+	public int pisoMasAlto() {
+		return pisos.length() - 1;
+	}
+
+	@Override
+	public BitSet pisos() {
+		return (BitSet) pisos.clone();
+	}
+}
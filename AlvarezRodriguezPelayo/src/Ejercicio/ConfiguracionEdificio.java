@@ -0,0 +1,142 @@
+package Ejercicio;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+
+// Modelo del edificio: plantas, personas y los ascensores con sus características.
+// Se puede cargar de un fichero .properties (ver edificio-ejemplo.properties):
+//
+//   plantas=40
+//   personas=300
+//   ascensores=4
+//   # Valores para todos los ascensores...
+//   capacidad=8
+//   ms-piso=500
+//   ms-aceleracion=0
+//   ms-puertas=0
+//   pisos=0-39
+//   # ...y para uno en concreto (ascensor.<id>.<clave>)
+//   ascensor.3.pisos=0,20-39
+public class ConfiguracionEdificio {
+
+	private final int plantas;
+	private final int personas;
+	private final List<ConfiguracionAscensor> ascensores;
+
+	public ConfiguracionEdificio(int plantas, int personas, List<ConfiguracionAscensor> ascensores) {
+		if (plantas < 2) {
+			throw new IllegalArgumentException("El edificio necesita al menos 2 plantas: " + plantas);
+		}
+		if (ascensores.isEmpty()) {
+			throw new IllegalArgumentException("El edificio necesita al menos un ascensor");
+		}
+		for (int i = 0; i < ascensores.size(); i++) {
+			if (ascensores.get(i).pisoMasAlto() >= plantas) {
+				throw new IllegalArgumentException("El ascensor " + i + " para en plantas que no existen");
+			}
+		}
+		this.plantas = plantas;
+		this.personas = personas;
+		this.ascensores = List.copyOf(ascensores);
+	}
+
+	// Todos los ascensores iguales y parando en todas las plantas (como hasta ahora)
+	public static ConfiguracionEdificio uniforme(int plantas, int personas, int numAscensores, long msPorPiso) {
+		List<ConfiguracionAscensor> ascensores = new ArrayList<>();
+		for (int i = 0; i < numAscensores; i++) {
+			ascensores.add(ConfiguracionAscensor.todasLasPlantas(plantas, msPorPiso));
+		}
+		return new ConfiguracionEdificio(plantas, personas, ascensores);
+	}
+
+	public static ConfiguracionEdificio porDefecto() {
+		return uniforme(ControladorEdificio.PLANTAS, ControladorEdificio.PERSONAS_TOTALES, 2, Ascensor.MS_POR_PISO);
+	}
+
+	public static ConfiguracionEdificio cargar(Path archivo) throws IOException {
+		Properties propiedades = new Properties();
+		try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+			propiedades.load(lector);
+		}
+		return desde(propiedades);
+	}
+
+	static ConfiguracionEdificio desde(Properties p) {
+		int plantas = entero(p, "plantas", String.valueOf(ControladorEdificio.PLANTAS));
+		int personas = entero(p, "personas", String.valueOf(ControladorEdificio.PERSONAS_TOTALES));
+		int numAscensores = entero(p, "ascensores", "2");
+
+		List<ConfiguracionAscensor> ascensores = new ArrayList<>();
+		for (int i = 0; i < numAscensores; i++) {
+			String prefijo = "ascensor." + i + ".";
+			ascensores.add(new ConfiguracionAscensor(
+					entero(p, prefijo + "capacidad", p.getProperty("capacidad", String.valueOf(ConfiguracionAscensor.CAPACIDAD))),
+					largo(p, prefijo + "ms-piso", p.getProperty("ms-piso", String.valueOf(Ascensor.MS_POR_PISO))),
+					largo(p, prefijo + "ms-aceleracion", p.getProperty("ms-aceleracion", "0")),
+					largo(p, prefijo + "ms-puertas", p.getProperty("ms-puertas", "0")),
+					leerPisos(p.getProperty(prefijo + "pisos", p.getProperty("pisos", "0-" + (plantas - 1))), plantas)));
+		}
+		return new ConfiguracionEdificio(plantas, personas, ascensores);
+	}
+
+	// "0,20-39" -> {0, 20, 21, ..., 39}
+	static BitSet leerPisos(String texto, int plantas) {
+		BitSet pisos = new BitSet(plantas);
+		for (String tramo : texto.split(",")) {
+			String[] extremos = tramo.trim().split("-");
+			try {
+				int desde = Integer.parseInt(extremos[0].trim());
+				int hasta = extremos.length > 1 ? Integer.parseInt(extremos[1].trim()) : desde;
+				if (extremos.length > 2 || desde < 0 || hasta < desde) {
+					throw new IllegalArgumentException("Tramo de plantas no válido: " + tramo);
+				}
+				pisos.set(desde, hasta + 1);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Tramo de plantas no válido: " + tramo, e);
+			}
+		}
+		return pisos;
+	}
+
+	private static int entero(Properties p, String clave, String porDefecto) {
+		return (int) largo(p, clave, porDefecto);
+	}
+
+	private static long largo(Properties p, String clave, String porDefecto) {
+		String valor = p.getProperty(clave, porDefecto).trim();
+		try {
+			return Long.parseLong(valor);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Valor no válido para " + clave + ": " + valor, e);
+		}
+	}
+
+	// Crea el controlador con sus arrays por planta y registra los ascensores
+	public ControladorEdificio crearControlador(DispatchStrategy despacho, RegistroSimulacion registro) {
+		ControladorEdificio controlador = new ControladorEdificio(plantas, ascensores.size(), despacho, registro);
+		for (int i = 0; i < ascensores.size(); i++) {
+			controlador.registrarAscensor(i, new Ascensor(i, controlador, ascensores.get(i)));
+		}
+		return controlador;
+	}
+
+	// --- Getters ---
+	public int getPlantas() {
+		return plantas;
+	}
+
+	public int getPersonas() {
+		return personas;
+	}
+
+	public List<ConfiguracionAscensor> getAscensores() {
+		return ascensores;
+	}
+}
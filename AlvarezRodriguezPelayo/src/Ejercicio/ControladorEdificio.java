@@ -1,7 +1,10 @@
 package Ejercicio;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -10,33 +13,98 @@ public class ControladorEdificio {
 	public static final int PLANTAS = 21;
 	public static final int PERSONAS_TOTALES = 100;
 
+	// Número de plantas de este edificio (PLANTAS salvo que se indique otro)
+	private final int plantas;
 	private final Ascensor[] ascensores;
+	// Log asíncrono: los hilos solo dejan el evento, otro hilo lo escribe
+	private final RegistroSimulacion registro;
 
 	// --- Gestión de Pausa/Reanudación ---
-	private final ReentrantLock pausaLock = new ReentrantLock();
-	private final Condition reanudarCond = pausaLock.newCondition();
-	private boolean pausado = false;
+	// Sin locks: mientras no se pausa, comprobarla es leer un volatile
+	private final PuertaPausa pausa;
 
 	// --- Gestión de Llamadas Externas (Botones en cada piso) ---
-	// Usamos Sets seguros para concurrencia para registrar qué pisos han llamado.
-	private final Set<Integer> llamadasSubir = ConcurrentHashMap.newKeySet();
-	private final Set<Integer> llamadasBajar = ConcurrentHashMap.newKeySet();
+	// Un bit por piso (RegistroPisos) para registrar qué pisos han llamado.
+	private final RegistroPisos llamadasSubir;
+	private final RegistroPisos llamadasBajar;
 
-	// Lock y Condition para notificar a los ascensores IDLES que hay un nuevo
-	// trabajo.
-	private final ReentrantLock lockLlamadas = new ReentrantLock();
-	private final Condition hayNuevasLlamadas = lockLlamadas.newCondition();
+	// --- Despacho: qué ascensor atiende cada llamada ---
+	private final DispatchStrategy despacho;
+	// Ascensor asignado a cada llamada encendida (o DispatchStrategy.SIN_ASIGNAR)
+	private final AtomicIntegerArray asignadoSubir;
+	private final AtomicIntegerArray asignadoBajar;
+	// Despacho por destino (DispatchStrategy.porPasajero): se asigna a cada persona
+	// y cada ascensor recoge solo a los suyos. Por ascensor, a quién tiene que
+	// recoger (null si el despacho es por botón)
+	private final boolean porPasajero;
+	private final RecogidasAscensor[] recogidas;
+
+	// Lock y una Condition *por ascensor* para notificar a un ascensor IDLE que
+	// hay trabajo para él (y no despertar a todos los demás).
+	private final ReentrantLock lockLlamadas = Instrumentacion.lock("lockLlamadas");
+	private final Condition[] hayTrabajoAscensor;
 
 	// --- Gestión de Espera en Pisos ---
-	// Un Lock y una Condition *por cada piso* donde las personas esperan.
-	private final ReentrantLock[] locksPiso = new ReentrantLock[PLANTAS];
-	private final Condition[] personasEsperandoEnPiso = new Condition[PLANTAS];
+	// Un Lock *por cada piso* y dos colas FIFO (subir y bajar) de gente esperando.
+	// El ascensor que llega admite, por orden de llegada, tantas personas de su
+	// sentido como plazas tiene y despierta solo a esas: nada de signalAll y
+	// carrera por el semáforo. Cada persona tiene su propia Condition.
+	private final ReentrantLock[] locksPiso;
+	private final List<ArrayDeque<EsperaPiso>> colasSubir;
+	private final List<ArrayDeque<EsperaPiso>> colasBajar;
+
+	// Modo de comparación: true = despertar a todos como antes (ver PruebaEstres)
+	private volatile boolean notificacionGlobal = false;
+	private final MetricasNotificacion metricas = new MetricasNotificacion();
+	// Tiempos de espera y de viaje de cada persona (ver SimulacionPorLotes)
+	private final MetricasViaje metricasViaje = new MetricasViaje();
+	private final long inicioNanos = System.nanoTime();
+
+	// --- Motor de eventos discretos (opcional) ---
+	// Si está presente, el embarque lo resuelve el simulador en vez de los hilos.
+	private SimuladorEventos simulador;
 
 	public ControladorEdificio(int numAscensores) {
+		this(numAscensores, new DespachoLibre());
+	}
+
+	public ControladorEdificio(int numAscensores, DispatchStrategy despacho) {
+		this(numAscensores, despacho, new RegistroSimulacion(NivelRegistro.DETALLE));
+	}
+
+	public ControladorEdificio(int numAscensores, DispatchStrategy despacho, RegistroSimulacion registro) {
+		this(PLANTAS, numAscensores, despacho, registro);
+	}
+
+	public ControladorEdificio(int plantas, int numAscensores, DispatchStrategy despacho,
+			RegistroSimulacion registro) {
+		this.plantas = plantas;
 		this.ascensores = new Ascensor[numAscensores];
-		for (int i = 0; i < PLANTAS; i++) {
-			locksPiso[i] = new ReentrantLock();
-			personasEsperandoEnPiso[i] = locksPiso[i].newCondition();
+		this.pausa = new PuertaPausa(numAscensores);
+		this.despacho = despacho;
+		this.porPasajero = despacho.porPasajero();
+		this.recogidas = porPasajero ? new RecogidasAscensor[numAscensores] : null;
+		this.registro = registro;
+		this.hayTrabajoAscensor = new Condition[numAscensores];
+		for (int i = 0; i < numAscensores; i++) {
+			hayTrabajoAscensor[i] = lockLlamadas.newCondition();
+			if (porPasajero) {
+				recogidas[i] = new RecogidasAscensor(plantas);
+			}
+		}
+		this.llamadasSubir = new RegistroPisos(plantas);
+		this.llamadasBajar = new RegistroPisos(plantas);
+		this.asignadoSubir = new AtomicIntegerArray(plantas);
+		this.asignadoBajar = new AtomicIntegerArray(plantas);
+		this.locksPiso = new ReentrantLock[plantas];
+		this.colasSubir = new ArrayList<>(plantas);
+		this.colasBajar = new ArrayList<>(plantas);
+		for (int i = 0; i < plantas; i++) {
+			locksPiso[i] = Instrumentacion.lock("locksPiso");
+			colasSubir.add(new ArrayDeque<>());
+			colasBajar.add(new ArrayDeque<>());
+			asignadoSubir.set(i, DispatchStrategy.SIN_ASIGNAR);
+			asignadoBajar.set(i, DispatchStrategy.SIN_ASIGNAR);
 		}
 	}
 
@@ -44,119 +112,277 @@ public class ControladorEdificio {
 		this.ascensores[id] = ascensor;
 	}
 
-	// --- Lógica de Impresión Sincronizada ---
-	// Sincronizado para evitar que los logs de diferentes hilos se mezclen.
-	public synchronized void imprimirEstado(String mensaje) {
-		System.out.println(mensaje);
+	public void usarSimulador(SimuladorEventos simulador) {
+		this.simulador = simulador;
+	}
+
+	public Ascensor[] getAscensores() {
+		return ascensores;
+	}
+
+	public int getPlantas() {
+		return plantas;
+	}
+
+	// Reloj de la simulación en ms: el virtual del simulador en modo eventos, el
+	// real desde que se creó el controlador en modo hilos
+	public long ahoraMs() {
+		if (simulador != null) {
+			return simulador.getAhora();
+		}
+		return (System.nanoTime() - inicioNanos) / 1_000_000;
+	}
+
+	public void setNotificacionGlobal(boolean notificacionGlobal) {
+		this.notificacionGlobal = notificacionGlobal;
+	}
+
+	public MetricasNotificacion getMetricas() {
+		return metricas;
+	}
+
+	public MetricasViaje getMetricasViaje() {
+		return metricasViaje;
+	}
+
+	// --- Lógica de Impresión ---
+	// Mensajes de texto libre (poco frecuentes). Los eventos habituales van por
+	// getRegistro().registrar(...) sin construir el String en el hilo que los genera.
+	// El único hilo que escribe es el del registro, así que las líneas no se mezclan.
+	public void imprimirEstado(String mensaje) {
+		registro.mensaje(mensaje);
+	}
+
+	public RegistroSimulacion getRegistro() {
+		return registro;
 	}
 
 	// --- Lógica de Pausa ---
 	public void pausar() {
-		pausaLock.lock();
-		try {
-			pausado = true;
-			imprimirEstado("--- SIMULACIÓN PAUSADA ---");
-		} finally {
-			pausaLock.unlock();
-		}
+		pausa.cerrar();
+		imprimirEstado("--- SIMULACIÓN PAUSADA ---" + itinerarios());
 	}
 
 	public void reanudar() {
-		pausaLock.lock();
-		try {
-			pausado = false;
-			imprimirEstado("--- SIMULACIÓN REANUDADA ---");
-			reanudarCond.signalAll(); // Despierta a TODOS los hilos (Personas y Ascensores)
-		} finally {
-			pausaLock.unlock();
+		pausa.abrir(); // Despierta a TODOS los hilos aparcados (Personas y Ascensores)
+		imprimirEstado("--- SIMULACIÓN REANUDADA ---");
+	}
+
+	// Con la simulación pausada, cada ascensor da 'pasos' vueltas más a su bucle y
+	// vuelve a pararse: para seguir las decisiones del despacho una a una
+	public void avanzarPasos(int pasos) {
+		if (!pausa.isCerrada()) {
+			throw new IllegalStateException("Solo se puede avanzar paso a paso con la simulación pausada");
 		}
+		imprimirEstado("--- AVANZAR " + pasos + (pasos == 1 ? " PASO" : " PASOS") + " ---" + itinerarios());
+		pausa.avanzar(pasos);
 	}
 
-	// Método que cada hilo debe llamar en su bucle principal
-	public void comprobarPausa() throws InterruptedException {
-		pausaLock.lock();
-		try {
-			while (pausado) {
-				reanudarCond.await();
-			}
-		} finally {
-			pausaLock.unlock();
+	// Dónde está cada ascensor y qué paradas piensa hacer, en orden
+	private String itinerarios() {
+		StringBuilder sb = new StringBuilder();
+		for (Ascensor ascensor : ascensores) {
+			EstadoAscensor estado = ascensor.getEstado();
+			sb.append(String.format("%n  A%d en %d %s, paradas %s", ascensor.getIdAscensor(), estado.piso(),
+					estado.sentido(), ascensor.getItinerario()));
 		}
+		return sb.toString();
+	}
+
+	public boolean isPausado() {
+		return pausa.isCerrada();
+	}
+
+	// Para las personas: esperan mientras la simulación esté pausada
+	public void comprobarPausa() throws InterruptedException {
+		pausa.pasar();
+	}
+
+	// Para el bucle de cada ascensor: con la simulación pausada solo pasa si le
+	// quedan pasos de avanzarPasos
+	public void comprobarPausa(Ascensor ascensor) throws InterruptedException {
+		pausa.pasar(ascensor.getIdAscensor());
 	}
 
 	// Método público para que Ascensor notifique que hay nuevo trabajo (un destino
-	// interno)
-	public void notificarNuevoTrabajo() {
+	// interno). Solo le afecta a él.
+	public void notificarNuevoTrabajo(Ascensor ascensor) {
+		if (simulador != null) {
+			return;
+		}
 		lockLlamadas.lock();
+		long inicio = System.nanoTime();
 		try {
-			// Despierta a cualquier ascensor que esté en modo 'esperarNuevaLlamada'
-			hayNuevasLlamadas.signalAll();
+			if (notificacionGlobal) {
+				despertarAscensores();
+			} else {
+				hayTrabajoAscensor[ascensor.getIdAscensor()].signal();
+			}
 		} finally {
+			metricas.retencion(System.nanoTime() - inicio);
 			lockLlamadas.unlock();
 		}
 	}
 
-	// --- Lógica de Llamadas de Personas ---
+	// Avisa a todos los ascensores parados (llamada libre o modo global)
+	private void despertarAscensores() {
+		for (Condition condicion : hayTrabajoAscensor) {
+			condicion.signal();
+		}
+	}
 
-	public Ascensor llamarYEsperarAscensor(String personaId, int piso, Direccion dir) throws InterruptedException {
-		imprimirEstado(String.format(">> %s llama ascensor en piso %d para %s", personaId, piso, dir));
+	// --- Lógica de Llamadas de Personas ---
 
+	public Ascensor llamarYEsperarAscensor(Persona persona, int piso, Direccion dir) throws InterruptedException {
+		long inicio = Instrumentacion.LLAMAR_Y_ESPERAR.empezar();
 		// 1. Registrar la llamada
-		hacerLlamada(piso, dir);
+		registrarLlamada(persona, piso, dir);
 
 		// 2. Esperar en el piso
+		int destino = persona.getPisoDestino();
 		locksPiso[piso].lock();
 		try {
-			Ascensor ascensorAsignado = null;
-			while (ascensorAsignado == null) {
-				// Comprueba si hay un ascensor válido AHORA MISMO
-				ascensorAsignado = buscarAscensorEnPiso(piso, dir);
-
-				if (ascensorAsignado == null) {
-					// Si no, espera a que un ascensor le avise (signalAll)
-					personasEsperandoEnPiso[piso].await();
+			// Si ya hay aquí un ascensor de su sentido con sitio, entra sin hacer cola
+			// (los que esperaban ya tuvieron su turno cuando llegó)
+			Ascensor ascensorAsignado = buscarAscensorEnPiso(piso, dir, destino, persona.getAscensorAsignado());
+			if (ascensorAsignado != null) {
+				olvidarPasajero(persona);
+			} else {
+				EsperaPiso espera = new EsperaPiso(persona, locksPiso[piso].newCondition());
+				cola(piso, dir).addLast(espera);
+				// Si el ascensor se acaba de ir, la llamada ya está atendida: se vuelve a
+				// pulsar el botón para no quedarse olvidado
+				if (!hayLlamada(piso, dir)) {
+					hacerLlamada(piso, dir, destino);
 				}
+				while (espera.ascensor == null) {
+					espera.turno.await();
+					if (espera.ascensor == null && notificacionGlobal) {
+						// Modo de comparación: despiertan todos y cada uno prueba suerte
+						Ascensor ascensor = buscarAscensorEnPiso(piso, dir, destino, persona.getAscensorAsignado());
+						if (ascensor != null) {
+							cola(piso, dir).remove(espera);
+							olvidarPasajero(persona);
+							espera.ascensor = ascensor;
+						} else if (!hayLlamada(piso, dir)) {
+							hacerLlamada(piso, dir, destino);
+						}
+					}
+					metricas.despertar(espera.ascensor != null);
+				}
+				ascensorAsignado = espera.ascensor;
 			}
 			// Encontró un ascensor y tiene sitio
-			imprimirEstado(String.format(">> %s entra en ascensor %d en piso %d", personaId,
-					ascensorAsignado.getIdAscensor(), piso));
+			registro.registrar(TipoRegistro.PERSONA_ENTRA, persona.getNumero(), ascensorAsignado.getIdAscensor(), piso);
 			return ascensorAsignado;
 		} finally {
 			locksPiso[piso].unlock();
+			Instrumentacion.LLAMAR_Y_ESPERAR.terminar(inicio);
 		}
 	}
 
-	private void hacerLlamada(int piso, Direccion dir) {
-		if (dir == Direccion.SUBIENDO) {
-			llamadasSubir.add(piso);
-		} else {
-			llamadasBajar.add(piso);
+	// Registra la llamada sin bloquear (la usa también el motor de eventos)
+	public void registrarLlamada(Persona persona, int piso, Direccion dir) {
+		registro.registrar(TipoRegistro.PERSONA_LLAMA, persona.getNumero(), piso, dir.ordinal());
+		if (porPasajero) {
+			// Por destino: la persona tiene ya su ascensor y solo se avisa a ese
+			asignarPasajero(persona);
+			getLlamadas(dir).encender(piso);
+			avisar(persona.getAscensorAsignado());
+			return;
+		}
+		hacerLlamada(piso, dir, persona.getPisoDestino());
+	}
+
+	// --- Despacho por destino ---
+
+	// El despacho elige ascensor para la persona, según adónde va, y se le apunta
+	private void asignarPasajero(Persona persona) {
+		int asignado = despacho.asignar(persona.getPisoOrigen(), persona.getDireccion(), persona.getPisoDestino(),
+				this);
+		persona.setAscensorAsignado(asignado);
+		if (asignado != DispatchStrategy.SIN_ASIGNAR) {
+			recogidas[asignado].apuntar(persona);
 		}
+	}
+
+	// La persona ya no espera a su ascensor: ha subido (a él o, si había sitio, al
+	// que estaba en el piso al llamar)
+	void olvidarPasajero(Persona persona) {
+		if (porPasajero && persona.getAscensorAsignado() != DispatchStrategy.SIN_ASIGNAR) {
+			recogidas[persona.getAscensorAsignado()].quitar(persona);
+		}
+	}
+
+	// Su ascensor ha llegado lleno: el despacho le da otro (o el mismo, si es el
+	// único que hace el viaje) y se avisa a ese
+	void reasignarPasajero(Persona persona) {
+		olvidarPasajero(persona);
+		asignarPasajero(persona);
+		getLlamadas(persona.getDireccion()).encender(persona.getPisoOrigen());
+		avisar(persona.getAscensorAsignado());
+	}
+
+	public boolean isPorPasajero() {
+		return porPasajero;
+	}
+
+	public RecogidasAscensor getRecogidas(Ascensor ascensor) {
+		return recogidas[ascensor.getIdAscensor()];
+	}
+
+	void hacerLlamada(int piso, Direccion dir) {
+		hacerLlamada(piso, dir, DispatchStrategy.SIN_DESTINO);
+	}
+
+	// 'destino' es adonde va quien pulsa (si se sabe): con zonas, el despacho solo
+	// elige entre los ascensores que paran en los dos pisos
+	void hacerLlamada(int piso, Direccion dir, int destino) {
+		// Si el botón estaba apagado, el despacho elige ascensor ANTES de encenderlo
+		// para que ningún otro ascensor la vea como libre mientras tanto
+		if (!porPasajero && !hayLlamada(piso, dir)) {
+			asignados(dir).set(piso, despacho.asignar(piso, dir, destino, this));
+		}
+		getLlamadas(dir).encender(piso);
 
 		// Notificar a los ascensores parados que hay trabajo
+		avisar(asignados(dir).get(piso));
+	}
+
+	// Despierta al ascensor al que el despacho le ha dado trabajo (si no se ha
+	// dado a nadie, a todos)
+	private void avisar(int asignado) {
+		if (simulador != null) {
+			simulador.despertarOciosos();
+			return;
+		}
 		lockLlamadas.lock();
+		long inicio = System.nanoTime();
 		try {
-			hayNuevasLlamadas.signalAll();
+			if (notificacionGlobal || asignado == DispatchStrategy.SIN_ASIGNAR) {
+				despertarAscensores();
+			} else {
+				hayTrabajoAscensor[asignado].signal();
+			}
 		} finally {
+			metricas.retencion(System.nanoTime() - inicio);
 			lockLlamadas.unlock();
 		}
 	}
 
 	// Llamado por el Ascensor cuando atiende una llamada
 	public void atenderLlamada(int piso, Direccion dir) {
-		if (dir == Direccion.SUBIENDO) {
-			llamadasSubir.remove(piso);
-		} else {
-			llamadasBajar.remove(piso);
-		}
+		getLlamadas(dir).apagar(piso);
+		asignados(dir).set(piso, DispatchStrategy.SIN_ASIGNAR);
 	}
 
-	// Un ascensor IDLE espera aquí hasta que alguien llame
-	public void esperarNuevaLlamada() throws InterruptedException {
+	// Un ascensor IDLE espera aquí hasta que haya trabajo para él
+	public void esperarNuevaLlamada(Ascensor ascensor) throws InterruptedException {
 		lockLlamadas.lock();
 		try {
-			while (llamadasSubir.isEmpty() && llamadasBajar.isEmpty()) {
-				hayNuevasLlamadas.await();
+			while (!hayLlamadasPara(ascensor) && !ascensor.tieneDestinos()) {
+				hayTrabajoAscensor[ascensor.getIdAscensor()].await();
+				metricas.despertar(hayLlamadasPara(ascensor) || ascensor.tieneDestinos());
 			}
 		} finally {
 			lockLlamadas.unlock();
@@ -164,12 +390,23 @@ public class ControladorEdificio {
 	}
 
 	// Llamado por la Persona para ver si un ascensor ha llegado
-	private Ascensor buscarAscensorEnPiso(int piso, Direccion dir) {
+	Ascensor buscarAscensorEnPiso(int piso, Direccion dir, int destino) {
+		return buscarAscensorEnPiso(piso, dir, destino, DispatchStrategy.SIN_ASIGNAR);
+	}
+
+	// Con despacho por destino, solo vale 'asignado' (el suyo)
+	Ascensor buscarAscensorEnPiso(int piso, Direccion dir, int destino, int asignado) {
 		for (Ascensor ascensor : ascensores) {
-			if (ascensor.getPisoActual() == piso && ascensor.getSentido() == dir) {
+			if (porPasajero && ascensor.getIdAscensor() != asignado) {
+				continue;
+			}
+			// Piso y sentido de la misma foto, sin el lock del ascensor
+			long estado = ascensor.getEstadoEmpaquetado();
+			if (EstadoAscensor.piso(estado) == piso && EstadoAscensor.sentido(estado) == dir
+					&& puedeLlevar(ascensor, piso, destino)) {
 				// ¡El ascensor está aquí y va en mi dirección!
-				// Intenta "coger" un sitio. Si tryAcquire() falla, el ascensor está lleno.
-				if (ascensor.getCapacidad().tryAcquire()) {
+				// Intenta "coger" un sitio. Si no queda ninguno, el ascensor está lleno.
+				if (ascensor.ocuparPlaza()) {
 					return ascensor; // Éxito
 				}
 			}
@@ -178,26 +415,199 @@ public class ControladorEdificio {
 	}
 
 	// Llamado por el Ascensor cuando llega a un piso para recoger gente
-	public void notificarLlegadaAscensor(int piso) {
+	public void notificarLlegadaAscensor(Ascensor ascensor, int piso) {
+		if (simulador != null) {
+			// Modo eventos: no hay hilos esperando, el simulador sube a la gente
+			simulador.embarcarPasajeros(ascensor, piso);
+			return;
+		}
 		locksPiso[piso].lock();
+		long inicio = System.nanoTime();
 		try {
-			// Despierta a TODAS las personas que esperan en ese piso
-			personasEsperandoEnPiso[piso].signalAll();
+			if (notificacionGlobal) {
+				// Como antes: TODAS las personas del piso, vayan donde vayan
+				for (EsperaPiso espera : colasSubir.get(piso)) {
+					espera.turno.signal();
+				}
+				for (EsperaPiso espera : colasBajar.get(piso)) {
+					espera.turno.signal();
+				}
+			} else {
+				admitir(ascensor, piso);
+			}
 		} finally {
+			metricas.retencion(System.nanoTime() - inicio);
 			locksPiso[piso].unlock();
 		}
 	}
 
+	// Despacho por destino: el ascensor pasa lleno por un piso donde le esperan
+	// pasajeros suyos. Sin abrir puertas, admitir (o embarcarPasajeros) no les
+	// encuentra plaza y el despacho les da otro ascensor
+	void devolverPasajeros(Ascensor ascensor, int piso) {
+		if (simulador != null) {
+			simulador.embarcarPasajeros(ascensor, piso);
+			return;
+		}
+		locksPiso[piso].lock();
+		try {
+			admitir(ascensor, piso);
+		} finally {
+			locksPiso[piso].unlock();
+		}
+	}
+
+	// Con el lock del piso: por orden de llegada, a cada persona del sentido del
+	// ascensor que pueda llevar se le da plaza y se la despierta, hasta llenarlo.
+	// Quien no puede ir en él (zonas, o es de otro ascensor con despacho por
+	// destino) no pierde su sitio en la cola.
+	private void admitir(Ascensor ascensor, int piso) {
+		Direccion sentido = ascensor.getSentido();
+		ArrayDeque<EsperaPiso> cola = cola(piso, sentido);
+		EsperaPiso quedaFuera = null;
+		Iterator<EsperaPiso> it = cola.iterator();
+		while (it.hasNext()) {
+			EsperaPiso espera = it.next();
+			if (!puedeSubir(ascensor, piso, espera.persona)) {
+				if (quedaFuera == null) {
+					quedaFuera = espera;
+				}
+				continue;
+			}
+			if (!ascensor.ocuparPlaza()) {
+				quedaFuera = espera; // lleno: el resto sigue esperando
+				if (!porPasajero) {
+					break;
+				}
+				reasignarPasajero(espera.persona); // por destino: los suyos pasan a otro
+				continue;
+			}
+			it.remove();
+			olvidarPasajero(espera.persona);
+			espera.ascensor = ascensor;
+			espera.turno.signal();
+		}
+		// Los que se quedan fuera vuelven a tener el botón encendido
+		if (quedaFuera != null && !hayLlamada(piso, sentido)) {
+			hacerLlamada(piso, sentido, quedaFuera.persona.getPisoDestino());
+		}
+	}
+
+	// Puede subir a este ascensor: para en su destino y, con despacho por destino,
+	// es el suyo
+	public boolean puedeSubir(Ascensor ascensor, int piso, Persona persona) {
+		return puedeLlevar(ascensor, piso, persona.getPisoDestino())
+				&& (!porPasajero || persona.getAscensorAsignado() == ascensor.getIdAscensor());
+	}
+
+	private ArrayDeque<EsperaPiso> cola(int piso, Direccion dir) {
+		return (dir == Direccion.SUBIENDO) ? colasSubir.get(piso) : colasBajar.get(piso);
+	}
+
+	// Una persona en la cola de un piso. 'ascensor' lo rellena quien la admite,
+	// antes de despertarla; todo bajo el lock del piso.
+	private static final class EsperaPiso {
+		final Persona persona;
+		final Condition turno;
+		Ascensor ascensor;
+
+		EsperaPiso(Persona persona, Condition turno) {
+			this.persona = persona;
+			this.turno = turno;
+		}
+	}
+
 	// --- Getters de estado para el Ascensor ---
-	public Set<Integer> getLlamadasSubir() {
-		return llamadasSubir;
+	public RegistroPisos getLlamadas(Direccion dir) {
+		return (dir == Direccion.SUBIENDO) ? llamadasSubir : llamadasBajar;
 	}
 
-	public Set<Integer> getLlamadasBajar() {
-		return llamadasBajar;
+	public boolean hayLlamada(int piso, Direccion dir) {
+		return getLlamadas(dir).contiene(piso);
 	}
 
 	public boolean hayLlamadas() {
-		return !llamadasSubir.isEmpty() || !llamadasBajar.isEmpty();
+		return !llamadasSubir.vacio() || !llamadasBajar.vacio();
+	}
+
+	// La llamada está encendida y es de este ascensor (o de nadie en concreto)
+	public boolean esLlamadaPara(Ascensor ascensor, int piso, Direccion dir) {
+		if (!hayLlamada(piso, dir)) {
+			return false;
+		}
+		return esAsignableA(ascensor, piso, dir);
+	}
+
+	private boolean esAsignableA(Ascensor ascensor, int piso, Direccion dir) {
+		if (porPasajero) {
+			return recogidas[ascensor.getIdAscensor()].esperan(piso, dir) > 0;
+		}
+		int asignado = asignados(dir).get(piso);
+		return asignado == ascensor.getIdAscensor()
+				|| (asignado == DispatchStrategy.SIN_ASIGNAR && ascensor.sirve(piso));
+	}
+
+	// El ascensor para en el piso de origen y en el de destino (si se sabe)
+	public boolean puedeLlevar(Ascensor ascensor, int origen, int destino) {
+		return ascensor.sirve(origen) && (destino == DispatchStrategy.SIN_DESTINO || ascensor.sirve(destino));
+	}
+
+	// Algún ascensor hace este viaje sin transbordos
+	public boolean hayAscensorPara(int origen, int destino) {
+		for (Ascensor ascensor : ascensores) {
+			if (puedeLlevar(ascensor, origen, destino)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Primera llamada de 'dir' en un piso >= desde que puede atender este ascensor
+	// (o -1). Recorre solo los bits encendidos, sin reservar memoria.
+	public int siguienteLlamadaPara(Ascensor ascensor, Direccion dir, int desde) {
+		RegistroPisos llamadas = getLlamadas(dir);
+		for (int piso = llamadas.siguiente(desde); piso >= 0; piso = llamadas.siguiente(piso + 1)) {
+			if (esAsignableA(ascensor, piso, dir)) {
+				return piso;
+			}
+		}
+		return -1;
+	}
+
+	// Lo mismo hacia abajo: última llamada en un piso <= desde (o -1)
+	public int anteriorLlamadaPara(Ascensor ascensor, Direccion dir, int desde) {
+		RegistroPisos llamadas = getLlamadas(dir);
+		for (int piso = llamadas.anterior(desde); piso >= 0; piso = llamadas.anterior(piso - 1)) {
+			if (esAsignableA(ascensor, piso, dir)) {
+				return piso;
+			}
+		}
+		return -1;
+	}
+
+	public boolean hayLlamadasPara(Ascensor ascensor) {
+		return siguienteLlamadaPara(ascensor, Direccion.SUBIENDO, 0) >= 0
+				|| siguienteLlamadaPara(ascensor, Direccion.BAJANDO, 0) >= 0;
+	}
+
+	// Llamadas encendidas que el despacho ha dado a este ascensor
+	public int getNumeroLlamadasAsignadas(Ascensor ascensor) {
+		return contarAsignadas(ascensor, Direccion.SUBIENDO) + contarAsignadas(ascensor, Direccion.BAJANDO);
+	}
+
+	private int contarAsignadas(Ascensor ascensor, Direccion dir) {
+		RegistroPisos llamadas = getLlamadas(dir);
+		AtomicIntegerArray asignado = asignados(dir);
+		int total = 0;
+		for (int piso = llamadas.siguiente(0); piso >= 0; piso = llamadas.siguiente(piso + 1)) {
+			if (porPasajero ? esAsignableA(ascensor, piso, dir) : asignado.get(piso) == ascensor.getIdAscensor()) {
+				total++;
+			}
+		}
+		return total;
+	}
+
+	private AtomicIntegerArray asignados(Direccion dir) {
+		return (dir == Direccion.SUBIENDO) ? asignadoSubir : asignadoBajar;
 	}
 }
@@ -0,0 +1,11 @@
+package Ejercicio;
+
+// Comportamiento original: la llamada no se asigna y todos los ascensores
+// parados se despiertan y van a por ella.
+public class DespachoLibre implements DispatchStrategy {
+
+	@Override
+	public int asignar(int piso, Direccion dir, int destino, ControladorEdificio controlador) {
+		return SIN_ASIGNAR;
+	}
+}
@@ -0,0 +1,26 @@
+package Ejercicio;
+
+// Asigna la llamada al ascensor más cercano en pisos. En empate, el que tenga
+// menos llamadas asignadas (para no cargarlo todo al mismo ascensor).
+public class DespachoMasCercano implements DispatchStrategy {
+
+	@Override
+	public int asignar(int piso, Direccion dir, int destino, ControladorEdificio controlador) {
+		int mejor = SIN_ASIGNAR;
+		int mejorDistancia = Integer.MAX_VALUE;
+		int mejorCarga = Integer.MAX_VALUE;
+		for (Ascensor ascensor : controlador.getAscensores()) {
+			if (!controlador.puedeLlevar(ascensor, piso, destino)) {
+				continue;
+			}
+			int distancia = Math.abs(ascensor.getPisoActual() - piso);
+			int carga = controlador.getNumeroLlamadasAsignadas(ascensor);
+			if (distancia < mejorDistancia || (distancia == mejorDistancia && carga < mejorCarga)) {
+				mejorDistancia = distancia;
+				mejorCarga = carga;
+				mejor = ascensor.getIdAscensor();
+			}
+		}
+		return mejor;
+	}
+}
@@ -0,0 +1,43 @@
+package Ejercicio;
+
+// Despacho por destino: cada persona marca su planta en el vestíbulo (la
+// Persona ya sabe su pisoDestino) y se le da ascensor a ella, no al botón del
+// piso. El ascensor solo recoge a los suyos, así que se agrupa a los que van al
+// mismo sitio: al coste de llegada de DespachoTiempoLlegada se suma una parada
+// más si el ascensor aún no va a parar en su destino, y la penalización de lleno
+// si contando a los que ya tiene que recoger no le caben más.
+public class DespachoPorDestino implements DispatchStrategy {
+
+	private final DespachoTiempoLlegada eta = new DespachoTiempoLlegada();
+
+	@Override
+	public boolean porPasajero() {
+		return true;
+	}
+
+	@Override
+	public int asignar(int piso, Direccion dir, int destino, ControladorEdificio controlador) {
+		int mejor = SIN_ASIGNAR;
+		long mejorCoste = Long.MAX_VALUE;
+		for (Ascensor ascensor : controlador.getAscensores()) {
+			if (!controlador.puedeLlevar(ascensor, piso, destino)) {
+				continue;
+			}
+			RecogidasAscensor recogidas = controlador.getRecogidas(ascensor);
+			ConfiguracionAscensor config = ascensor.getConfiguracion();
+			long coste = eta.coste(ascensor, piso, dir, controlador.getNumeroLlamadasAsignadas(ascensor));
+			if (destino != SIN_DESTINO && recogidas.vanA(destino) == 0 && !ascensor.tieneDestino(destino)) {
+				coste += DespachoTiempoLlegada.PISOS_POR_PARADA * config.msPorPiso() + config.msPuertas()
+						+ config.msAceleracion();
+			}
+			if (ascensor.getOcupantes() + recogidas.getTotal() >= config.capacidad()) {
+				coste += DespachoTiempoLlegada.PENALIZACION_LLENO;
+			}
+			if (coste < mejorCoste) {
+				mejorCoste = coste;
+				mejor = ascensor.getIdAscensor();
+			}
+		}
+		return mejor;
+	}
+}
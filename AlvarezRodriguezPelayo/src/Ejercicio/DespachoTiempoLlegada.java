@@ -0,0 +1,61 @@
+package Ejercicio;
+
+// Asigna la llamada al ascensor con menor tiempo estimado de llegada (ETA):
+// pisos a recorrer (incluida la vuelta si va en sentido contrario o ya ha
+// pasado el piso), más las paradas pendientes (destinos internos y llamadas
+// que ya tiene asignadas, con sus puertas y arranques) y una penalización si
+// va lleno.
+public class DespachoTiempoLlegada implements DispatchStrategy {
+
+	// Coste estimado de cada parada intermedia (abrir, entrar/salir, cerrar), en
+	// pisos recorridos
+	static final int PISOS_POR_PARADA = 1;
+	// Un ascensor lleno no puede recoger a nadie: solo se elige si no hay otro
+	static final long PENALIZACION_LLENO = 60_000;
+
+	@Override
+	public int asignar(int piso, Direccion dir, int destino, ControladorEdificio controlador) {
+		int mejor = SIN_ASIGNAR;
+		long mejorCoste = Long.MAX_VALUE;
+		for (Ascensor ascensor : controlador.getAscensores()) {
+			if (!controlador.puedeLlevar(ascensor, piso, destino)) {
+				continue;
+			}
+			long coste = coste(ascensor, piso, dir, controlador.getNumeroLlamadasAsignadas(ascensor));
+			if (coste < mejorCoste) {
+				mejorCoste = coste;
+				mejor = ascensor.getIdAscensor();
+			}
+		}
+		return mejor;
+	}
+
+	long coste(Ascensor ascensor, int piso, Direccion dir, int llamadasAsignadas) {
+		// Piso, sentido y ocupantes de la misma foto; paradas y extremo son lecturas
+		// sueltas (es una estimación)
+		long estado = ascensor.getEstadoEmpaquetado();
+		int pisoActual = EstadoAscensor.piso(estado);
+		Direccion sentido = EstadoAscensor.sentido(estado);
+		int paradas = ascensor.getNumeroParadas();
+		int extremo = ascensor.getParadaMasLejana();
+
+		int pisos;
+		if (sentido == Direccion.PARADO) {
+			pisos = Math.abs(pisoActual - piso);
+		} else if (sentido == dir && (sentido == Direccion.SUBIENDO ? piso >= pisoActual : piso <= pisoActual)) {
+			// Le pilla de camino
+			pisos = Math.abs(piso - pisoActual);
+		} else {
+			// Tiene que llegar a su parada más lejana y volver
+			pisos = Math.abs(extremo - pisoActual) + Math.abs(extremo - piso);
+		}
+
+		ConfiguracionAscensor config = ascensor.getConfiguracion();
+		long msPorParada = PISOS_POR_PARADA * config.msPorPiso() + config.msPuertas() + config.msAceleracion();
+		long coste = pisos * config.msPorPiso() + (paradas + llamadasAsignadas) * msPorParada;
+		if (EstadoAscensor.ocupantes(estado) >= config.capacidad()) {
+			coste += PENALIZACION_LLENO;
+		}
+		return coste;
+	}
+}
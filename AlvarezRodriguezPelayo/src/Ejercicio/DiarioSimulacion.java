@@ -0,0 +1,143 @@
+package Ejercicio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Diario binario de la simulación: cada evento de RegistroSimulacion (llamadas,
+// subidas, bajadas, cada piso de cada ascensor...) como un registro de tamaño
+// fijo al final de un fichero proyectado en memoria. Anotar es reservar hueco con
+// un getAndIncrement y copiar unos enteros: ni String.format ni E/S en el hilo
+// que lo genera (la escritura a disco la hace el sistema operativo). Con el
+// diario se puede repetir la ejecución después con ReproductorDiario.
+//
+//   cabecera (64 bytes): MAGIA, VERSION, TAM_REGISTRO, plantas, ascensores,
+//                        inicio (ms desde 1970)
+//   registro (32 bytes): tipo + 1, a, b, c, d, 0, ms (reloj de la simulación)
+//
+// Todo en big-endian, como las tramas de unidad3.echo. El tipo se escribe el
+// último: un registro con tipo 0 aún no está completo (o la ejecución se cortó
+// ahí) y quien lee se para en él. El fichero crece de SEGMENTO en SEGMENTO y al
+// cerrar se recorta a lo escrito. Los mensajes de texto libre no se guardan.
+public class DiarioSimulacion implements Closeable {
+
+	static final int MAGIA = 0x41534344; // "ASCD"
+	static final int VERSION = 1;
+	static final int CABECERA = 64;
+	static final int TAM_REGISTRO = 32;
+	static final int SEGMENTO = 1 << 26; // 64 MB: 2M registros por proyección
+
+	private static final VarHandle TIPO = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private final FileChannel canal;
+	private final LongSupplier reloj;
+	private final AtomicLong siguiente = new AtomicLong(); // próximo registro a reservar
+
+	// Segmentos proyectados; se añaden (con el lock, copiando el array) la primera
+	// vez que hacen falta
+	private volatile MappedByteBuffer[] segmentos = new MappedByteBuffer[0];
+	private final ReentrantLock lockSegmentos = new ReentrantLock();
+	private volatile boolean cerrado = false;
+	// Hilos dentro de anotar(): close() espera a que salgan antes de recortar
+	private final AtomicInteger escribiendo = new AtomicInteger();
+
+	// 'reloj' da el instante de cada evento (normalmente controlador::ahoraMs)
+	public DiarioSimulacion(Path archivo, int plantas, int ascensores, LongSupplier reloj) throws IOException {
+		this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.reloj = reloj;
+		ByteBuffer cabecera = segmento(0);
+		cabecera.putInt(0, MAGIA);
+		cabecera.putInt(4, VERSION);
+		cabecera.putInt(8, TAM_REGISTRO);
+		cabecera.putInt(12, plantas);
+		cabecera.putInt(16, ascensores);
+		cabecera.putLong(20, System.currentTimeMillis());
+	}
+
+	// Camino caliente: lo llaman a la vez los hilos de ascensores y personas
+	void anotar(TipoRegistro tipo, int a, int b, int c, int d) {
+		// Primero entrar y luego mirar 'cerrado' (close() lo hace al revés): o close()
+		// ve a este hilo y lo espera, o este hilo ve el diario cerrado
+		escribiendo.incrementAndGet();
+		try {
+			if (cerrado) {
+				return;
+			}
+			long posicion = CABECERA + siguiente.getAndIncrement() * TAM_REGISTRO;
+			MappedByteBuffer segmento = segmento((int) (posicion / SEGMENTO));
+			int i = (int) (posicion % SEGMENTO);
+			segmento.putInt(i + 4, a);
+			segmento.putInt(i + 8, b);
+			segmento.putInt(i + 12, c);
+			segmento.putInt(i + 16, d);
+			segmento.putLong(i + 24, reloj.getAsLong());
+			// Con "release": quien ve el tipo ve también el resto del registro
+			TIPO.setRelease(segmento, i, tipo.ordinal() + 1);
+		} finally {
+			escribiendo.decrementAndGet();
+		}
+	}
+
+	private MappedByteBuffer segmento(int n) {
+		MappedByteBuffer[] actuales = segmentos;
+		if (n < actuales.length && actuales[n] != null) {
+			return actuales[n];
+		}
+		lockSegmentos.lock();
+		try {
+			actuales = segmentos;
+			if (n < actuales.length && actuales[n] != null) {
+				return actuales[n]; // lo ha proyectado otro mientras tanto
+			}
+			// Siempre un array nuevo: el que ya leen los demás sin lock no se toca, y
+			// quien vea el nuevo (volatile) ve también el buffer entero
+			MappedByteBuffer[] nuevos = Arrays.copyOf(actuales, Math.max(n + 1, actuales.length));
+			nuevos[n] = canal.map(FileChannel.MapMode.READ_WRITE, (long) n * SEGMENTO, SEGMENTO);
+			segmentos = nuevos;
+			return nuevos[n];
+		} catch (IOException e) {
+			throw new IllegalStateException("No se puede ampliar el diario", e);
+		} finally {
+			lockSegmentos.unlock();
+		}
+	}
+
+	public long getRegistros() {
+		return siguiente.get();
+	}
+
+	// Vuelca a disco y recorta el fichero a lo escrito. Se puede llamar con la
+	// simulación en marcha (el hook de salida de Main): lo que llegue después se
+	// descarta y se espera a quien esté a medio anotar, que si no escribiría en una
+	// proyección ya recortada
+	@Override
+	public void close() throws IOException {
+		if (cerrado) {
+			return;
+		}
+		cerrado = true;
+		while (escribiendo.get() != 0) {
+			Thread.yield(); // son unos pocos stores: sale enseguida
+		}
+		for (MappedByteBuffer segmento : segmentos) {
+			if (segmento != null) {
+				segmento.force();
+			}
+		}
+		canal.truncate(CABECERA + siguiente.get() * TAM_REGISTRO);
+		canal.close();
+	}
+}
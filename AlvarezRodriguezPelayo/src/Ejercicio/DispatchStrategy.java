@@ -0,0 +1,32 @@
+package Ejercicio;
+
+// Estrategia de despacho: decide qué ascensor atiende cada llamada de piso.
+// El controlador la consulta una sola vez, cuando se enciende el botón.
+public interface DispatchStrategy {
+
+	// Valor que indica "sin asignar": cualquier ascensor puede atender la llamada
+	int SIN_ASIGNAR = -1;
+	// Destino desconocido (la llamada se repite sin saber quién queda esperando)
+	int SIN_DESTINO = -1;
+
+	// Devuelve el id del ascensor que atenderá la llamada (o SIN_ASIGNAR). Solo
+	// valen los ascensores que controlador.puedeLlevar(ascensor, piso, destino).
+	int asignar(int piso, Direccion dir, int destino, ControladorEdificio controlador);
+
+	// true si se asigna a cada persona al llamar (con su destino) en vez de al
+	// botón del piso; entonces cada ascensor recoge solo a los suyos
+	default boolean porPasajero() {
+		return false;
+	}
+
+	// Selección por nombre desde la línea de comandos (--despacho=...)
+	static DispatchStrategy porNombre(String nombre) {
+		return switch (nombre) {
+		case "libre" -> new DespachoLibre();
+		case "cercano" -> new DespachoMasCercano();
+		case "eta" -> new DespachoTiempoLlegada();
+		case "destino" -> new DespachoPorDestino();
+		default -> throw new IllegalArgumentException("Estrategia de despacho desconocida: " + nombre);
+		};
+	}
+}
@@ -0,0 +1,104 @@
+package Ejercicio;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import unidad3.echo.HistogramaConcurrente;
+import unidad3.echo.HistogramaLatencias;
+
+// Contadores de una familia de locks (todos los locksPiso, todos los lockEstado
+// de los ascensores...): cuántas veces se cogen, cuántas hubo que esperar, y
+// cuánto se espera y cuánto se tienen. Los alimenta LockMedido desde muchos
+// hilos a la vez, así que todo es sin lock.
+public class EstadisticasLock implements EstadisticasLockMBean {
+
+	private final String nombre;
+	private final LongAdder adquisiciones = new LongAdder();
+	private final LongAdder contendidas = new LongAdder();
+	private final HistogramaConcurrente espera = new HistogramaConcurrente();
+	private final HistogramaConcurrente tenencia = new HistogramaConcurrente();
+
+	EstadisticasLock(String nombre) {
+		this.nombre = nombre;
+	}
+
+	void adquirido() {
+		adquisiciones.increment();
+	}
+
+	void esperado(long ns) {
+		contendidas.increment();
+		espera.registrar(ns);
+	}
+
+	void tenido(long ns) {
+		tenencia.registrar(ns);
+	}
+
+	@Override
+	public void reiniciar() {
+		adquisiciones.reset();
+		contendidas.reset();
+		espera.reiniciar();
+		tenencia.reiniciar();
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	@Override
+	public long getAdquisiciones() {
+		return adquisiciones.sum();
+	}
+
+	@Override
+	public long getContendidas() {
+		return contendidas.sum();
+	}
+
+	@Override
+	public double getEsperaMediaUs() {
+		return media(espera, espera.foto());
+	}
+
+	@Override
+	public double getEsperaP99Us() {
+		return espera.foto().percentil(99) / 1000.0;
+	}
+
+	@Override
+	public double getEsperaMaxUs() {
+		return espera.foto().getMaximo() / 1000.0;
+	}
+
+	@Override
+	public double getTenenciaMediaUs() {
+		return media(tenencia, tenencia.foto());
+	}
+
+	@Override
+	public double getTenenciaP99Us() {
+		return tenencia.foto().percentil(99) / 1000.0;
+	}
+
+	@Override
+	public double getTenenciaMaxUs() {
+		return tenencia.foto().getMaximo() / 1000.0;
+	}
+
+	private static double media(HistogramaConcurrente histograma, HistogramaLatencias foto) {
+		return foto.getTotal() == 0 ? 0 : histograma.getSuma() / 1000.0 / foto.getTotal();
+	}
+
+	@Override
+	public String toString() {
+		HistogramaLatencias e = espera.foto();
+		HistogramaLatencias t = tenencia.foto();
+		long total = getAdquisiciones();
+		return String.format(
+				"%-22s adquisiciones=%d contendidas=%d (%.1f%%) espera p50/p99/máx=%.1f/%.1f/%.1f µs tenencia p50/p99/máx=%.1f/%.1f/%.1f µs",
+				nombre, total, getContendidas(), total == 0 ? 0 : 100.0 * getContendidas() / total,
+				e.percentil(50) / 1000.0, e.percentil(99) / 1000.0, e.getMaximo() / 1000.0, t.percentil(50) / 1000.0,
+				t.percentil(99) / 1000.0, t.getMaximo() / 1000.0);
+	}
+}
@@ -0,0 +1,24 @@
+package Ejercicio;
+
+// Lo que publica EstadisticasLock por JMX (Ejercicio:type=Lock,nombre=...).
+// Tiempos en microsegundos; la espera es solo la de las adquisiciones contendidas
+public interface EstadisticasLockMBean {
+
+	long getAdquisiciones();
+
+	long getContendidas();
+
+	double getEsperaMediaUs();
+
+	double getEsperaP99Us();
+
+	double getEsperaMaxUs();
+
+	double getTenenciaMediaUs();
+
+	double getTenenciaP99Us();
+
+	double getTenenciaMaxUs();
+
+	void reiniciar();
+}
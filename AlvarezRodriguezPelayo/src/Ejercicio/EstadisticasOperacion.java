@@ -0,0 +1,92 @@
+package Ejercicio;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import unidad3.echo.HistogramaConcurrente;
+import unidad3.echo.HistogramaLatencias;
+
+// Duración de una operación del camino caliente (llamarYEsperarAscensor...),
+// con cuántos hilos están dentro ahora mismo. Uso:
+//
+//   long t0 = OPERACION.empezar();
+//   try { ... } finally { OPERACION.terminar(t0); }
+//
+// Con la instrumentación apagada empezar() y terminar() no hacen nada: la
+// comprobación es de una constante y el JIT la quita.
+public class EstadisticasOperacion implements EstadisticasOperacionMBean {
+
+	private final String nombre;
+	private final LongAdder enCurso = new LongAdder();
+	private final HistogramaConcurrente duracion = new HistogramaConcurrente();
+
+	EstadisticasOperacion(String nombre) {
+		this.nombre = nombre;
+	}
+
+	long empezar() {
+		if (!Instrumentacion.ACTIVA) {
+			return 0;
+		}
+		enCurso.increment();
+		return System.nanoTime();
+	}
+
+	void terminar(long inicio) {
+		if (!Instrumentacion.ACTIVA) {
+			return;
+		}
+		long ns = System.nanoTime() - inicio;
+		enCurso.decrement();
+		duracion.registrar(ns);
+		EventoOperacion.registrar(nombre, ns);
+	}
+
+	// No toca enCurso: los que están dentro siguen dentro
+	@Override
+	public void reiniciar() {
+		duracion.reiniciar();
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	@Override
+	public long getLlamadas() {
+		return duracion.foto().getTotal();
+	}
+
+	@Override
+	public long getEnCurso() {
+		return enCurso.sum();
+	}
+
+	@Override
+	public double getMediaMs() {
+		HistogramaLatencias foto = duracion.foto();
+		return foto.getTotal() == 0 ? 0 : duracion.getSuma() / 1e6 / foto.getTotal();
+	}
+
+	@Override
+	public double getP50Ms() {
+		return duracion.foto().percentil(50) / 1e6;
+	}
+
+	@Override
+	public double getP99Ms() {
+		return duracion.foto().percentil(99) / 1e6;
+	}
+
+	@Override
+	public double getMaxMs() {
+		return duracion.foto().getMaximo() / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		HistogramaLatencias d = duracion.foto();
+		return String.format("%-22s llamadas=%d media=%.2f p50=%.2f p99=%.2f máx=%.2f ms", nombre, d.getTotal(),
+				d.getTotal() == 0 ? 0 : duracion.getSuma() / 1e6 / d.getTotal(), d.percentil(50) / 1e6,
+				d.percentil(99) / 1e6, d.getMaximo() / 1e6);
+	}
+}
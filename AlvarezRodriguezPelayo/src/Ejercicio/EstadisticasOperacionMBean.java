@@ -0,0 +1,19 @@
+package Ejercicio;
+
+// Lo que publica EstadisticasOperacion por JMX (Ejercicio:type=Operacion,nombre=...)
+public interface EstadisticasOperacionMBean {
+
+	long getLlamadas();
+
+	long getEnCurso();
+
+	double getMediaMs();
+
+	double getP50Ms();
+
+	double getP99Ms();
+
+	double getMaxMs();
+
+	void reiniciar();
+}
@@ -0,0 +1,54 @@
+package Ejercicio;
+
+// Foto del estado de un ascensor. El ascensor la publica empaquetada en un solo
+// long (ver Ascensor.getEstado), así que quien la lee ve piso, sentido, gente
+// dentro y puertas del mismo instante, sin coger el lock del ascensor:
+//
+//   bits  0-19  piso
+//   bits 20-21  sentido (ordinal de Direccion)
+//   bits 22-41  ocupantes
+//   bit  42     puertas abiertas
+//
+// Los métodos estáticos leen un campo del long sin crear el record (para los
+// caminos calientes: despacho, personas esperando); de() da la foto completa.
+public record EstadoAscensor(int piso, Direccion sentido, int ocupantes, boolean puertasAbiertas) {
+
+	private static final Direccion[] DIRECCIONES = Direccion.values();
+	private static final int BITS_PISO = 20;
+	private static final int BITS_OCUPANTES = 20;
+	private static final int DESP_SENTIDO = BITS_PISO;
+	private static final int DESP_OCUPANTES = DESP_SENTIDO + 2;
+	private static final int DESP_PUERTAS = DESP_OCUPANTES + BITS_OCUPANTES;
+	private static final long MASCARA_PISO = (1L << BITS_PISO) - 1;
+	private static final long MASCARA_OCUPANTES = (1L << BITS_OCUPANTES) - 1;
+
+	static long empaquetar(int piso, Direccion sentido, int ocupantes, boolean puertasAbiertas) {
+		return (piso & MASCARA_PISO) | ((long) sentido.ordinal() << DESP_SENTIDO)
+				| ((ocupantes & MASCARA_OCUPANTES) << DESP_OCUPANTES) | (puertasAbiertas ? 1L << DESP_PUERTAS : 0);
+	}
+
+	// Mismo estado con otro número de ocupantes
+	static long conOcupantes(long estado, int ocupantes) {
+		return (estado & ~(MASCARA_OCUPANTES << DESP_OCUPANTES)) | ((ocupantes & MASCARA_OCUPANTES) << DESP_OCUPANTES);
+	}
+
+	public static int piso(long estado) {
+		return (int) (estado & MASCARA_PISO);
+	}
+
+	public static Direccion sentido(long estado) {
+		return DIRECCIONES[(int) (estado >>> DESP_SENTIDO) & 0b11];
+	}
+
+	public static int ocupantes(long estado) {
+		return (int) ((estado >>> DESP_OCUPANTES) & MASCARA_OCUPANTES);
+	}
+
+	public static boolean puertasAbiertas(long estado) {
+		return (estado & (1L << DESP_PUERTAS)) != 0;
+	}
+
+	public static EstadoAscensor de(long estado) {
+		return new EstadoAscensor(piso(estado), sentido(estado), ocupantes(estado), puertasAbiertas(estado));
+	}
+}
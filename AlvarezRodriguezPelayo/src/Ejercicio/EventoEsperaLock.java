@@ -0,0 +1,21 @@
+package Ejercicio;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// Evento de JFR para cada vez que un LockMedido no está libre y hay que
+// esperarlo (la duración del evento es la espera). Se ve en JDK Mission Control
+// con la pila de quien esperaba; por defecto solo las esperas de más de 1 ms.
+@Name("Ejercicio.EsperaLock")
+@Label("Espera de lock")
+@Category({ "Ejercicio", "Locks" })
+@Description("Un hilo de la simulación espera a que se libere un lock")
+@Threshold("1 ms")
+class EventoEsperaLock extends jdk.jfr.Event {
+
+	@Label("Lock")
+	String lock;
+}
@@ -0,0 +1,35 @@
+package Ejercicio;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Evento de JFR al terminar una operación medida (EstadisticasOperacion). Se
+// emite al final con la duración como campo, porque la operación empieza y
+// acaba en sitios distintos del código.
+@Name("Ejercicio.Operacion")
+@Label("Operación de la simulación")
+@Category({ "Ejercicio", "Operaciones" })
+@Description("Duración de una operación del camino caliente de la simulación")
+@StackTrace(false)
+class EventoOperacion extends jdk.jfr.Event {
+
+	@Label("Operación")
+	String operacion;
+
+	@Label("Duración")
+	@Timespan(Timespan.NANOSECONDS)
+	long duracion;
+
+	static void registrar(String operacion, long ns) {
+		EventoOperacion evento = new EventoOperacion();
+		if (evento.isEnabled()) {
+			evento.operacion = operacion;
+			evento.duracion = ns;
+			evento.commit();
+		}
+	}
+}
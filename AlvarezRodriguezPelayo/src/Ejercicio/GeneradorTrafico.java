@@ -0,0 +1,150 @@
+package Ejercicio;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+// Genera las personas de una simulación a medida que hacen falta, en orden de
+// llegada: llegadas de Poisson con una tasa que cambia con el tiempo (una curva
+// de puntos segundo:tasa, interpolada en línea recta) y origen y destino según
+// un PerfilTrafico. Ninguna Persona existe antes de su turno, así que una
+// simulación de horas con cientos de miles de viajes no las tiene todas en memoria.
+//
+// Las llegadas salen por "adelgazamiento": candidatas de Poisson a la tasa
+// máxima de la curva, y cada una se queda con probabilidad tasa(t) / máxima.
+// La generación acaba al final de la curva o al llegar a maxPersonas.
+public class GeneradorTrafico implements Iterator<Persona> {
+
+	private final ControladorEdificio controlador;
+	private final PerfilTrafico perfil;
+	private final double[] curva; // segundo0, tasa0, segundo1, tasa1...
+	private final double tasaMaxima;
+	private final int maxPersonas;
+	private final SplittableRandom rand;
+
+	private double t = 0; // segundos desde el inicio
+	private int tramo = 0; // índice del punto de la curva donde empieza el tramo de t
+	private int generadas = 0;
+	private Persona siguiente;
+
+	public GeneradorTrafico(ControladorEdificio controlador, PerfilTrafico perfil, double[] curva, int maxPersonas,
+			SplittableRandom rand) {
+		if (curva.length < 4 || curva.length % 2 != 0) {
+			throw new IllegalArgumentException("La curva necesita al menos dos puntos segundo:tasa");
+		}
+		double maxima = 0;
+		for (int i = 0; i < curva.length; i += 2) {
+			if ((i > 0 && curva[i] < curva[i - 2]) || curva[i + 1] < 0) {
+				throw new IllegalArgumentException("Curva no válida en el punto " + (i / 2 + 1)
+						+ ": los segundos deben crecer y las tasas no ser negativas");
+			}
+			maxima = Math.max(maxima, curva[i + 1]);
+		}
+		if (maxima == 0) {
+			throw new IllegalArgumentException("La curva no tiene ninguna llegada (todas las tasas son 0)");
+		}
+		this.controlador = controlador;
+		this.perfil = perfil;
+		this.curva = curva.clone();
+		this.tasaMaxima = maxima;
+		this.maxPersonas = maxPersonas;
+		this.rand = rand;
+	}
+
+	// El perfil con su curva típica a la tasa pico dada, alargada lo justo para
+	// que salgan unas 'personas' llegadas
+	public static GeneradorTrafico perfil(ControladorEdificio controlador, PerfilTrafico perfil, double tasaPico,
+			int personas, SplittableRandom rand) {
+		double segundos = personas / (tasaPico * perfil.mediaCurva());
+		return new GeneradorTrafico(controlador, perfil, perfil.curva(tasaPico, segundos), personas, rand);
+	}
+
+	// Lee una curva de la forma "0:0.5,600:3,1200:0.5" (segundo:llegadas por segundo)
+	public static double[] leerCurva(String texto) {
+		String[] puntos = texto.split(",");
+		double[] curva = new double[puntos.length * 2];
+		for (int i = 0; i < puntos.length; i++) {
+			String[] partes = puntos[i].trim().split(":");
+			try {
+				if (partes.length != 2) {
+					throw new NumberFormatException();
+				}
+				curva[2 * i] = Double.parseDouble(partes[0]);
+				curva[2 * i + 1] = Double.parseDouble(partes[1]);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Punto de curva no válido (segundo:tasa): " + puntos[i], e);
+			}
+		}
+		return curva;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (siguiente == null && generadas < maxPersonas) {
+			siguiente = generar();
+		}
+		return siguiente != null;
+	}
+
+	@Override
+	public Persona next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Persona persona = siguiente;
+		siguiente = null;
+		return persona;
+	}
+
+	// Siguiente llegada aceptada, o null si la curva se ha terminado
+	private Persona generar() {
+		double fin = curva[curva.length - 2];
+		do {
+			t += -Math.log(1 - rand.nextDouble()) / tasaMaxima;
+			if (t > fin) {
+				return null;
+			}
+		} while (rand.nextDouble() * tasaMaxima >= tasa(t));
+
+		int plantas = controlador.getPlantas();
+		int origen;
+		int destino;
+		do {
+			double r = rand.nextDouble();
+			if (r < perfil.getEntrada()) {
+				origen = 0;
+				destino = 1 + rand.nextInt(plantas - 1);
+			} else if (r < perfil.getEntrada() + perfil.getSalida()) {
+				origen = 1 + rand.nextInt(plantas - 1);
+				destino = 0;
+			} else {
+				// Entre plantas: sin la planta baja, salvo en el perfil uniforme (o si
+				// no hay más de dos plantas arriba entre las que elegir)
+				int desde = (perfil == PerfilTrafico.UNIFORME || plantas < 3) ? 0 : 1;
+				origen = desde + rand.nextInt(plantas - desde);
+				do {
+					destino = desde + rand.nextInt(plantas - desde);
+				} while (destino == origen);
+			}
+			// Con zonas, solo viajes que algún ascensor hace sin transbordos
+		} while (!controlador.hayAscensorPara(origen, destino));
+
+		generadas++;
+		return new Persona(generadas, controlador, origen, destino, (long) (t * 1000));
+	}
+
+	// Tasa en el instante s, interpolando entre los dos puntos de la curva que lo
+	// rodean. Los instantes solo crecen, así que el tramo avanza y no se busca
+	private double tasa(double s) {
+		while (tramo + 2 < curva.length - 2 && curva[tramo + 2] < s) {
+			tramo += 2;
+		}
+		double s0 = curva[tramo];
+		double s1 = curva[tramo + 2];
+		if (s1 <= s0) {
+			return curva[tramo + 3];
+		}
+		double f = Math.min(1, Math.max(0, (s - s0) / (s1 - s0)));
+		return curva[tramo + 1] + f * (curva[tramo + 3] - curva[tramo + 1]);
+	}
+}
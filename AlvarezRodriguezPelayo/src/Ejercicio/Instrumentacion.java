@@ -0,0 +1,80 @@
+package Ejercicio;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Instrumentación de los locks y de las operaciones del camino caliente. Se
+// activa al arrancar con -Dejercicio.instrumentacion=true; ACTIVA es una
+// constante, así que apagada el JIT quita las comprobaciones y los locks son
+// ReentrantLock normales: coste cero.
+//
+// Activa, cada familia de locks (todos los locksPiso juntos, todos los
+// lockEstado de los ascensores juntos...) y cada operación tiene sus
+// estadísticas, que se ven:
+//  - por JMX (jconsole): Ejercicio:type=Lock,nombre=... y Ejercicio:type=Operacion,nombre=...
+//  - con informe() al final (SimulacionPorLotes, PruebaEstres)
+//  - en una grabación de JFR (-XX:StartFlightRecording): eventos Ejercicio.EsperaLock
+//    (esperas de más de 1 ms) y Ejercicio.Operacion
+public final class Instrumentacion {
+
+	public static final boolean ACTIVA = Boolean.getBoolean("ejercicio.instrumentacion");
+
+	private static final Map<String, EstadisticasLock> LOCKS = new ConcurrentSkipListMap<>();
+	private static final Map<String, EstadisticasOperacion> OPERACIONES = new ConcurrentSkipListMap<>();
+
+	// --- Operaciones medidas ---
+	static final EstadisticasOperacion LLAMAR_Y_ESPERAR = operacion("llamarYEsperarAscensor");
+	static final EstadisticasOperacion ESPERAR_DESTINO = operacion("esperarLlegadaADestino");
+	static final EstadisticasOperacion SUBIR_PERSONAS = operacion("subirPersonas");
+
+	private Instrumentacion() {
+	}
+
+	// Un lock de la familia 'nombre': medido si la instrumentación está activa
+	static ReentrantLock lock(String nombre) {
+		if (!ACTIVA) {
+			return new ReentrantLock();
+		}
+		return new LockMedido(LOCKS.computeIfAbsent(nombre, n -> publicar(new EstadisticasLock(n), "Lock", n)));
+	}
+
+	private static EstadisticasOperacion operacion(String nombre) {
+		EstadisticasOperacion operacion = new EstadisticasOperacion(nombre);
+		if (ACTIVA) {
+			OPERACIONES.put(nombre, publicar(operacion, "Operacion", nombre));
+		}
+		return operacion;
+	}
+
+	private static <T> T publicar(T mbean, String tipo, String nombre) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean,
+					new ObjectName("Ejercicio:type=" + tipo + ",nombre=" + nombre));
+		} catch (JMException e) {
+			System.err.println("No se ha podido publicar " + nombre + " por JMX: " + e);
+		}
+		return mbean;
+	}
+
+	public static void reiniciar() {
+		LOCKS.values().forEach(EstadisticasLock::reiniciar);
+		OPERACIONES.values().forEach(EstadisticasOperacion::reiniciar);
+	}
+
+	// Una línea por familia de locks y por operación (vacío si está apagada)
+	public static String informe() {
+		StringBuilder sb = new StringBuilder();
+		for (EstadisticasLock lock : LOCKS.values()) {
+			sb.append(lock).append(System.lineSeparator());
+		}
+		for (EstadisticasOperacion operacion : OPERACIONES.values()) {
+			sb.append(operacion).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
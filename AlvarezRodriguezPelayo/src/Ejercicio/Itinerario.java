@@ -0,0 +1,142 @@
+package Ejercicio;
+
+import java.util.BitSet;
+
+// Plan de paradas de un ascensor en el orden en que las va a hacer (LOOK): las
+// que le quedan en su sentido hasta la última, después las del sentido contrario
+// a la vuelta y por último las de su sentido que ha dejado atrás. Una parada es
+// un destino de alguien de dentro o una llamada que puede atender; lleno, no
+// cuenta con recoger a nadie. En cada decisión el ascensor solo necesita la
+// primera parada (primeraSalida, unas pocas búsquedas de bits); el plan entero
+// se monta bajo su lockEstado cuando alguien lo pide para enseñarlo, sobre
+// arrays reservados de antemano.
+public class Itinerario {
+
+	private static final int SIN_DESTINOS = Integer.MIN_VALUE;
+
+	private final int[] pisos;
+	// Sentido en el que se atiende cada parada (el de la llamada o el del tramo)
+	private final Direccion[] sentidos;
+	private int paradas = 0;
+
+	public Itinerario(int plantas) {
+		// Un piso sale como mucho una vez en cada uno de los tres tramos
+		this.pisos = new int[3 * plantas];
+		this.sentidos = new Direccion[3 * plantas];
+	}
+
+	// Rehace el plan para 'ascensor', en 'piso' y saliendo hacia 'sentido' (no
+	// PARADO). Las llamadas de 'piso' en ese sentido cuentan como primera parada
+	void planificar(ControladorEdificio controlador, Ascensor ascensor, int piso, Direccion sentido,
+			BitSet destinos, boolean recoger) {
+		paradas = 0;
+		int arriba = controlador.getPlantas() - 1;
+		if (sentido == Direccion.SUBIENDO) {
+			tramo(controlador, ascensor, destinos, recoger, Direccion.SUBIENDO, piso, arriba, piso);
+			tramo(controlador, ascensor, destinos, recoger, Direccion.BAJANDO, arriba, 0, piso - 1);
+			tramo(controlador, ascensor, destinos, recoger, Direccion.SUBIENDO, 0, piso - 1, SIN_DESTINOS);
+		} else {
+			tramo(controlador, ascensor, destinos, recoger, Direccion.BAJANDO, piso, 0, piso);
+			tramo(controlador, ascensor, destinos, recoger, Direccion.SUBIENDO, 0, arriba, piso + 1);
+			tramo(controlador, ascensor, destinos, recoger, Direccion.BAJANDO, arriba, piso + 1, SIN_DESTINOS);
+		}
+	}
+
+	void vaciar() {
+		paradas = 0;
+	}
+
+	// Hacia dónde tiene que salir desde 'piso' para ir a la primera parada del
+	// plan que haría planificar(), sin montarlo: es la primera del primer tramo
+	// que tenga alguna
+	static Direccion primeraSalida(ControladorEdificio controlador, Ascensor ascensor, int piso, Direccion sentido,
+			BitSet destinos, boolean recoger) {
+		int arriba = controlador.getPlantas() - 1;
+		boolean sube = sentido == Direccion.SUBIENDO;
+		Direccion vuelta = sube ? Direccion.BAJANDO : Direccion.SUBIENDO;
+		int parada = primera(controlador, ascensor, destinos, recoger, sentido, piso, sube ? arriba : 0, piso);
+		if (parada >= 0) {
+			return salida(piso, parada, sentido);
+		}
+		parada = primera(controlador, ascensor, destinos, recoger, vuelta, sube ? arriba : 0, sube ? 0 : arriba,
+				sube ? piso - 1 : piso + 1);
+		if (parada >= 0) {
+			return salida(piso, parada, vuelta);
+		}
+		parada = primera(controlador, ascensor, destinos, recoger, sentido, sube ? 0 : arriba,
+				sube ? piso - 1 : piso + 1, SIN_DESTINOS);
+		return parada >= 0 ? salida(piso, parada, sentido) : Direccion.PARADO;
+	}
+
+	private static Direccion salida(int piso, int parada, Direccion orden) {
+		if (parada != piso) {
+			return parada > piso ? Direccion.SUBIENDO : Direccion.BAJANDO;
+		}
+		return orden;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < paradas; i++) {
+			sb.append(i == 0 ? "" : " ").append(pisos[i]).append(sentidos[i] == Direccion.SUBIENDO ? "↑" : "↓");
+		}
+		return sb.append(']').toString();
+	}
+
+	// Un tramo de 'desde' a 'hasta' (ambos incluidos) en el sentido 'orden': las
+	// llamadas de ese sentido y los destinos a partir de 'desdeDestinos' (o
+	// ninguno), mezclados en orden de paso. Salta de bit en bit, sin mirar cada piso
+	private void tramo(ControladorEdificio controlador, Ascensor ascensor, BitSet destinos, boolean recoger,
+			Direccion orden, int desde, int hasta, int desdeDestinos) {
+		boolean sube = orden == Direccion.SUBIENDO;
+		int llamada = recoger ? siguienteLlamada(controlador, ascensor, orden, desde) : -1;
+		int destino = desdeDestinos == SIN_DESTINOS ? -1 : siguienteDestino(destinos, sube, desdeDestinos);
+		while (true) {
+			int parada = antes(llamada, destino, sube, hasta);
+			if (parada < 0) {
+				return;
+			}
+			pisos[paradas] = parada;
+			sentidos[paradas] = orden;
+			paradas++;
+			int despues = sube ? parada + 1 : parada - 1;
+			if (llamada == parada) {
+				llamada = siguienteLlamada(controlador, ascensor, orden, despues);
+			}
+			if (destino == parada) {
+				destino = siguienteDestino(destinos, sube, despues);
+			}
+		}
+	}
+
+	// Primera parada del tramo (o -1): la primera vuelta de tramo()
+	private static int primera(ControladorEdificio controlador, Ascensor ascensor, BitSet destinos, boolean recoger,
+			Direccion orden, int desde, int hasta, int desdeDestinos) {
+		boolean sube = orden == Direccion.SUBIENDO;
+		int llamada = recoger ? siguienteLlamada(controlador, ascensor, orden, desde) : -1;
+		int destino = desdeDestinos == SIN_DESTINOS ? -1 : siguienteDestino(destinos, sube, desdeDestinos);
+		return antes(llamada, destino, sube, hasta);
+	}
+
+	// La que llega antes en el sentido del tramo, si no se pasa de 'hasta' (o -1)
+	private static int antes(int llamada, int destino, boolean sube, int hasta) {
+		int parada;
+		if (llamada < 0 || destino < 0) {
+			parada = Math.max(llamada, destino);
+		} else {
+			parada = sube ? Math.min(llamada, destino) : Math.max(llamada, destino);
+		}
+		return parada < 0 || (sube ? parada > hasta : parada < hasta) ? -1 : parada;
+	}
+
+	private static int siguienteLlamada(ControladorEdificio controlador, Ascensor ascensor, Direccion orden,
+			int desde) {
+		return orden == Direccion.SUBIENDO ? controlador.siguienteLlamadaPara(ascensor, orden, desde)
+				: controlador.anteriorLlamadaPara(ascensor, orden, desde);
+	}
+
+	private static int siguienteDestino(BitSet destinos, boolean sube, int desde) {
+		return sube ? destinos.nextSetBit(desde) : destinos.previousSetBit(desde);
+	}
+}
@@ -0,0 +1,182 @@
+package Ejercicio;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ReentrantLock que apunta en sus EstadisticasLock cada adquisición, las que
+// tuvieron que esperar (y cuánto) y cuánto tiempo se tiene. Solo se crea con la
+// instrumentación activa (ver Instrumentacion.lock); si no, los campos son
+// ReentrantLock normales y no cuesta nada.
+//
+// La tenencia se mide desde que se coge hasta que se suelta del todo, sin
+// contar el tiempo dormido en un await() de sus Conditions (ahí el lock está
+// libre). Los tiempos se anotan con el lock cogido, así que inicioTenencia solo
+// lo toca quien lo tiene.
+class LockMedido extends ReentrantLock {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient EstadisticasLock estadisticas;
+	private long inicioTenencia;
+
+	LockMedido(EstadisticasLock estadisticas) {
+		this.estadisticas = estadisticas;
+	}
+
+	@Override
+	public void lock() {
+		if (!super.tryLock()) {
+			EventoEsperaLock evento = new EventoEsperaLock();
+			evento.begin();
+			long inicio = System.nanoTime();
+			super.lock();
+			esperado(inicio, evento);
+		}
+		adquirido();
+	}
+
+	@Override
+	public void lockInterruptibly() throws InterruptedException {
+		if (!super.tryLock()) {
+			EventoEsperaLock evento = new EventoEsperaLock();
+			evento.begin();
+			long inicio = System.nanoTime();
+			super.lockInterruptibly();
+			esperado(inicio, evento);
+		}
+		adquirido();
+	}
+
+	@Override
+	public boolean tryLock() {
+		boolean cogido = super.tryLock();
+		if (cogido) {
+			adquirido();
+		}
+		return cogido;
+	}
+
+	@Override
+	public boolean tryLock(long tiempo, TimeUnit unidad) throws InterruptedException {
+		if (super.tryLock()) {
+			adquirido();
+			return true;
+		}
+		long inicio = System.nanoTime();
+		boolean cogido = super.tryLock(tiempo, unidad);
+		if (cogido) {
+			estadisticas.esperado(System.nanoTime() - inicio);
+			adquirido();
+		}
+		return cogido;
+	}
+
+	@Override
+	public void unlock() {
+		if (getHoldCount() == 1) {
+			estadisticas.tenido(System.nanoTime() - inicioTenencia);
+		}
+		super.unlock();
+	}
+
+	@Override
+	public Condition newCondition() {
+		return new CondicionMedida(super.newCondition());
+	}
+
+	private void esperado(long inicio, EventoEsperaLock evento) {
+		estadisticas.esperado(System.nanoTime() - inicio);
+		evento.end();
+		if (evento.shouldCommit()) {
+			evento.lock = estadisticas.getNombre();
+			evento.commit();
+		}
+	}
+
+	private void adquirido() {
+		estadisticas.adquirido();
+		if (getHoldCount() == 1) {
+			inicioTenencia = System.nanoTime();
+		}
+	}
+
+	// Cierra el tramo de tenencia antes de dormir y abre otro al despertar
+	private final class CondicionMedida implements Condition {
+
+		private final Condition condicion;
+
+		CondicionMedida(Condition condicion) {
+			this.condicion = condicion;
+		}
+
+		private void soltar() {
+			estadisticas.tenido(System.nanoTime() - inicioTenencia);
+		}
+
+		private void recuperar() {
+			inicioTenencia = System.nanoTime();
+		}
+
+		@Override
+		public void await() throws InterruptedException {
+			soltar();
+			try {
+				condicion.await();
+			} finally {
+				recuperar();
+			}
+		}
+
+		@Override
+		public void awaitUninterruptibly() {
+			soltar();
+			try {
+				condicion.awaitUninterruptibly();
+			} finally {
+				recuperar();
+			}
+		}
+
+		@Override
+		public long awaitNanos(long nanos) throws InterruptedException {
+			soltar();
+			try {
+				return condicion.awaitNanos(nanos);
+			} finally {
+				recuperar();
+			}
+		}
+
+		@Override
+		public boolean await(long tiempo, TimeUnit unidad) throws InterruptedException {
+			soltar();
+			try {
+				return condicion.await(tiempo, unidad);
+			} finally {
+				recuperar();
+			}
+		}
+
+		@Override
+		public boolean awaitUntil(Date limite) throws InterruptedException {
+			soltar();
+			try {
+				return condicion.awaitUntil(limite);
+			} finally {
+				recuperar();
+			}
+		}
+
+		@Override
+		public void signal() {
+			condicion.signal();
+		}
+
+		@Override
+		public void signalAll() {
+			condicion.signalAll();
+		}
+	}
+}
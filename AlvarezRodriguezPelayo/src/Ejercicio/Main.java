@@ -2,10 +2,14 @@ package Ejercicio;
 
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -14,7 +18,7 @@ import javax.swing.SwingUtilities;
 
 public class Main {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
 
 		// --- 1. Crear la GUI (JFrame, JPanel, JTextArea) ---
 		JFrame frame = new JFrame("Log de Simulación de Ascensores");
@@ -41,7 +45,8 @@ public class Main {
 		// --- 2. Redirigir System.out al JTextArea ---
 		// Creamos una instancia de nuestra clase auxiliar
 		TextAreaOutputStream taOutputStream = new TextAreaOutputStream(logTextArea);
-		PrintStream printStream = new PrintStream(taOutputStream, true); // true = autoFlush
+		// true = autoFlush; UTF-8 explícito para que "SIMULACIÓN" llegue bien al JTextArea
+		PrintStream printStream = new PrintStream(taOutputStream, true, StandardCharsets.UTF_8);
 
 		// ¡Aquí ocurre la magia!
 		System.setOut(printStream);
@@ -53,36 +58,142 @@ public class Main {
 
 		// --- 4. Iniciar la simulación (código de antes) ---
 
+		// Con --reproducir la ventana no simula: enseña el log de una ejecución grabada
+		// con --diario, al ritmo original por --velocidad (2 = el doble; 0 = de golpe)
+		String reproducir = opcion(args, "reproducir", null);
+		if (reproducir != null) {
+			System.out.println(">>> Reproduciendo " + reproducir + "...");
+			try (ReproductorDiario diario = new ReproductorDiario(Path.of(reproducir))) {
+				diario.reproducir(System.out, NivelRegistro.porNombre(opcion(args, "log", "detalle")),
+						Double.parseDouble(opcion(args, "velocidad", "1")));
+			}
+			System.out.println(">>> Fin del diario.");
+			return;
+		}
+
 		System.out.println(">>> Iniciando simulación... Salida redirigida a esta ventana.");
 
-		ControladorEdificio controlador = new ControladorEdificio(2);
+		// Motor elegido al arrancar: "hilos" (por defecto) o "eventos" (reloj virtual)
+		String motor = opcion(args, "motor", "hilos");
+		long semilla = Long.parseLong(opcion(args, "semilla", String.valueOf(System.nanoTime())));
+		SplittableRandom rand = new SplittableRandom(semilla);
+
+		// Edificio: el de siempre (21 plantas, 2 ascensores) o uno descrito en un fichero
+		String archivo = opcion(args, "edificio", null);
+		ConfiguracionEdificio edificio = archivo == null ? ConfiguracionEdificio.porDefecto()
+				: ConfiguracionEdificio.cargar(Path.of(archivo));
+
+		int personas = Integer.parseInt(opcion(args, "personas", String.valueOf(edificio.getPersonas())));
+
+		// Estrategia de despacho: libre (original), cercano, eta o destino (por pasajero)
+		DispatchStrategy despacho = DispatchStrategy.porNombre(opcion(args, "despacho", "libre"));
+
+		// Nivel del log: detalle (por defecto), info o apagado (para medir)
+		RegistroSimulacion registro = new RegistroSimulacion(NivelRegistro.porNombre(opcion(args, "log", "detalle")));
+
+		ControladorEdificio controlador = edificio.crearControlador(despacho, registro);
+		Ascensor[] ascensores = controlador.getAscensores();
+
+		// Con --diario=fichero se graba la ejecución para verla después con --reproducir
+		String archivoDiario = opcion(args, "diario", null);
+		DiarioSimulacion diario = archivoDiario == null ? null
+				: new DiarioSimulacion(Path.of(archivoDiario), edificio.getPlantas(), ascensores.length,
+						controlador::ahoraMs);
+		registro.setDiario(diario);
+
+		if (motor.equals("eventos")) {
+			// Todo en este hilo: misma lógica, sin sleeps, sobre un reloj virtual
+			SimuladorEventos simulador = new SimuladorEventos(controlador);
+			for (int i = 0; i < personas; i++) {
+				simulador.añadirPersona(new Persona(i + 1, controlador, rand));
+			}
+			long inicio = System.nanoTime();
+			long fin = simulador.ejecutar();
+			registro.vaciar(); // que el resumen salga después de todo el log
+			if (diario != null) {
+				registro.setDiario(null);
+				diario.close();
+			}
+			System.out.println(String.format(
+					">>> Simulación por eventos (semilla %d): %d/%d viajes en %.1f s virtuales (%d ms reales). Espera media %.1f s.",
+					semilla, simulador.getViajesCompletados(), personas, fin / 1000.0,
+					(System.nanoTime() - inicio) / 1_000_000, controlador.getMetricasViaje().getEsperaMedia() / 1000.0));
+			return;
+		}
 
-		// Iniciar Hilos de Ascensores
-		ExecutorService poolAscensores = Executors.newFixedThreadPool(2);
-		Ascensor ascensor0 = new Ascensor(0, controlador);
-		Ascensor ascensor1 = new Ascensor(1, controlador);
-		controlador.registrarAscensor(0, ascensor0);
-		controlador.registrarAscensor(1, ascensor1);
+		if (diario != null) {
+			// Con hilos la simulación acaba al cerrar la ventana
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				registro.setDiario(null);
+				try {
+					diario.close();
+				} catch (IOException e) {
+					System.err.println("No se pudo cerrar el diario: " + e);
+				}
+			}));
+		}
 
-		poolAscensores.submit(ascensor0);
-		poolAscensores.submit(ascensor1);
+		// Hilos del sistema (por defecto) o virtuales
+		ModoHilos hilos = ModoHilos.porNombre(opcion(args, "hilos", "plataforma"));
+
+		// Iniciar Hilos de Ascensores
+		ExecutorService poolAscensores = hilos.poolAscensores(ascensores.length);
+		for (Ascensor ascensor : ascensores) {
+			poolAscensores.submit(ascensor);
+		}
 
 		// Iniciar Hilos de Personas
-		ExecutorService poolPersonas = Executors.newCachedThreadPool();
-		for (int i = 0; i < ControladorEdificio.PERSONAS_TOTALES; i++) {
-			poolPersonas.submit(new Persona(i + 1, controlador));
+		ExecutorService poolPersonas = hilos.poolPersonas();
+		for (int i = 0; i < personas; i++) {
+			poolPersonas.submit(new Persona(i + 1, controlador, rand));
 		}
 
-		System.out.println(
-				">>> Simulación iniciada con 2 ascensores y " + ControladorEdificio.PERSONAS_TOTALES + " personas.");
+		System.out.println(">>> Simulación iniciada con " + ascensores.length + " ascensores, " + edificio.getPlantas()
+				+ " plantas y " + personas + " personas (semilla " + semilla + ", hilos " + hilos + ").");
 
-		// --- 5. Eliminar control por consola ---
+		// --- 5. Control desde la GUI ---
 		// El control por Scanner(System.in) ya no funcionará porque
-		// la consola estándar ya no está conectada.
-		// Si quisieras pausar/reanudar, tendrías que añadir
-		// JButtons a la GUI que llamen a controlador.pausar() y controlador.reanudar().
+		// la consola estándar ya no está conectada: pausar, reanudar y, en pausa,
+		// avanzar los ascensores de uno en uno con botones.
+		SwingUtilities.invokeLater(() -> {
+			JButton pausar = new JButton("Pausar");
+			JButton reanudar = new JButton("Reanudar");
+			JButton avanzar = new JButton("Avanzar 1 paso");
+			reanudar.setEnabled(false);
+			avanzar.setEnabled(false);
+			pausar.addActionListener(e -> {
+				controlador.pausar();
+				pausar.setEnabled(false);
+				reanudar.setEnabled(true);
+				avanzar.setEnabled(true);
+			});
+			reanudar.addActionListener(e -> {
+				controlador.reanudar();
+				pausar.setEnabled(true);
+				reanudar.setEnabled(false);
+				avanzar.setEnabled(false);
+			});
+			avanzar.addActionListener(e -> controlador.avanzarPasos(1));
+			JPanel botones = new JPanel();
+			botones.add(pausar);
+			botones.add(reanudar);
+			botones.add(avanzar);
+			panel.add(botones, BorderLayout.SOUTH);
+			panel.revalidate();
+		});
 
 		// (El hilo principal 'main' terminará aquí, pero la aplicación
 		// seguirá viva gracias al hilo de la GUI y los hilos de los pools)
 	}
+
+	// Lee una opción de la forma --clave=valor de la línea de comandos
+	static String opcion(String[] args, String clave, String porDefecto) {
+		String prefijo = "--" + clave + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefijo)) {
+				return arg.substring(prefijo.length());
+			}
+		}
+		return porDefecto;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package Ejercicio;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores para comparar la notificación global (signalAll a todos) con la
+// dirigida (por ascensor y por piso/sentido). LongAdder para no añadir otro
+// punto de contención en los mismos caminos que se quieren medir.
+public class MetricasNotificacion {
+
+	private final LongAdder despertares = new LongAdder();
+	private final LongAdder despertaresInutiles = new LongAdder();
+	private final LongAdder avisos = new LongAdder();
+	private final LongAdder nanosRetencion = new LongAdder();
+
+	// Un hilo vuelve de await(): útil si encontró lo que esperaba
+	void despertar(boolean util) {
+		despertares.increment();
+		if (!util) {
+			despertaresInutiles.increment();
+		}
+	}
+
+	// Tiempo que se ha tenido un lock para avisar (signal/signalAll)
+	void retencion(long nanos) {
+		avisos.increment();
+		nanosRetencion.add(nanos);
+	}
+
+	public long getDespertares() {
+		return despertares.sum();
+	}
+
+	public long getDespertaresInutiles() {
+		return despertaresInutiles.sum();
+	}
+
+	public double getRetencionMediaMicros() {
+		long n = avisos.sum();
+		return n == 0 ? 0 : nanosRetencion.sum() / 1000.0 / n;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("despertares=%d (inútiles=%d), avisos=%d, retención media=%.2f µs", getDespertares(),
+				getDespertaresInutiles(), avisos.sum(), getRetencionMediaMicros());
+	}
+}
@@ -0,0 +1,98 @@
+package Ejercicio;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Espera (llegada -> embarque) y viaje (embarque -> bajada) de cada persona, en
+// ms del reloj de la simulación. Se guardan todas las muestras para sacar
+// percentiles exactos al final; solo se escribe una vez por persona.
+public class MetricasViaje {
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private long[] esperas = new long[1024];
+	private long[] viajes = new long[1024];
+	private int total = 0;
+
+	void viaje(long esperaMs, long viajeMs) {
+		lock.lock();
+		try {
+			if (total == esperas.length) {
+				esperas = Arrays.copyOf(esperas, total * 2);
+				viajes = Arrays.copyOf(viajes, total * 2);
+			}
+			esperas[total] = esperaMs;
+			viajes[total] = viajeMs;
+			total++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getViajes() {
+		lock.lock();
+		try {
+			return total;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double getEsperaMedia() {
+		return media(copia(true));
+	}
+
+	public double getViajeMedio() {
+		return media(copia(false));
+	}
+
+	// Resumen para comparar ejecuciones: percentiles, rendimiento y utilización de
+	// cada ascensor (fracción de la duración que ha pasado moviéndose o en paradas)
+	public String informe(long duracionMs, Ascensor[] ascensores) {
+		StringBuilder sb = new StringBuilder(resumen(duracionMs));
+		sb.append("utilización:");
+		for (Ascensor ascensor : ascensores) {
+			double usado = duracionMs == 0 ? 0 : (double) ascensor.getMsOcupado() / duracionMs;
+			sb.append(String.format(" A%d=%.0f%%", ascensor.getIdAscensor(), Math.min(1, usado) * 100));
+		}
+		return sb.append(System.lineSeparator()).toString();
+	}
+
+	// Las líneas de viajes, espera y viaje del informe (sin la utilización)
+	public String resumen(long duracionMs) {
+		long[] e = copia(true);
+		long[] v = copia(false);
+		Arrays.sort(e);
+		Arrays.sort(v);
+		return String.format("viajes completados: %d en %.1f s (%.2f viajes/min)%n", e.length, duracionMs / 1000.0,
+				duracionMs == 0 ? 0 : e.length * 60_000.0 / duracionMs) + linea("espera (s)", e) + linea("viaje (s)", v);
+	}
+
+	static String linea(String nombre, long[] ordenadas) {
+		return String.format("%-11s media=%.1f p50=%.1f p90=%.1f p99=%.1f máx=%.1f%n", nombre,
+				media(ordenadas) / 1000.0, percentil(ordenadas, 50) / 1000.0, percentil(ordenadas, 90) / 1000.0,
+				percentil(ordenadas, 99) / 1000.0, percentil(ordenadas, 100) / 1000.0);
+	}
+
+	// Percentil por rango más cercano sobre muestras ya ordenadas
+	private static long percentil(long[] ordenadas, int p) {
+		if (ordenadas.length == 0) {
+			return 0;
+		}
+		int rango = (int) Math.ceil(p / 100.0 * ordenadas.length);
+		return ordenadas[Math.max(0, rango - 1)];
+	}
+
+	private static double media(long[] muestras) {
+		return muestras.length == 0 ? 0 : (double) Arrays.stream(muestras).sum() / muestras.length;
+	}
+
+	// Muestras en ms, en orden de llegada: true = esperas, false = viajes
+	long[] copia(boolean espera) {
+		lock.lock();
+		try {
+			return Arrays.copyOf(espera ? esperas : viajes, total);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package Ejercicio;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Cómo se ejecutan ascensores y personas en el motor de hilos
+public enum ModoHilos {
+	// Un hilo del sistema por ascensor y por persona (como siempre)
+	PLATAFORMA,
+	// Un hilo virtual por tarea: una persona bloqueada esperando no ocupa un hilo
+	// del sistema, así que caben 100k+ personas en la misma JVM
+	VIRTUALES;
+
+	public ExecutorService poolAscensores(int numAscensores) {
+		return (this == VIRTUALES) ? Executors.newVirtualThreadPerTaskExecutor()
+				: Executors.newFixedThreadPool(numAscensores);
+	}
+
+	public ExecutorService poolPersonas() {
+		return (this == VIRTUALES) ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+	}
+
+	// Selección por nombre desde la línea de comandos (--hilos=...)
+	public static ModoHilos porNombre(String nombre) {
+		return switch (nombre) {
+		case "plataforma" -> PLATAFORMA;
+		case "virtuales" -> VIRTUALES;
+		default -> throw new IllegalArgumentException("Modo de hilos desconocido: " + nombre);
+		};
+	}
+}
@@ -0,0 +1,20 @@
+package Ejercicio;
+
+// Niveles del log de la simulación (de menos a más detalle)
+public enum NivelRegistro {
+	// Nada: para medir sin pagar el log
+	APAGADO,
+	// Llamadas, subidas, bajadas y mensajes generales
+	INFO,
+	// Además, cada piso que recorre cada ascensor
+	DETALLE;
+
+	public static NivelRegistro porNombre(String nombre) {
+		return switch (nombre) {
+		case "apagado" -> APAGADO;
+		case "info" -> INFO;
+		case "detalle" -> DETALLE;
+		default -> throw new IllegalArgumentException("Nivel de log desconocido: " + nombre);
+		};
+	}
+}
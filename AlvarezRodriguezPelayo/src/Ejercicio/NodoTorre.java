@@ -0,0 +1,281 @@
+package Ejercicio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+import unidad3.echo.CanalTramas;
+
+// Una torre (un banco de ascensores) de SimulacionDistribuida: su propio
+// ControladorEdificio con su motor de eventos, en el proceso que toque. Habla
+// con el coordinador por el protocolo de tramas de unidad3.echo (CanalTramas);
+// el id de cada trama es la orden y la respuesta lleva el mismo id:
+//
+//   CONFIGURAR  torre, edificio (.properties), despacho, tráfico, semilla...
+//   AVANZAR     hasta qué ms simular y quién llega de otras torres
+//               -> instante del siguiente evento y quién sale hacia otras torres
+//   TERMINAR    -> duración, muestras de espera y viaje, transbordos y ocupación
+//
+// Un transbordo es un viaje a otra torre: se baja a la planta baja, se anda
+// msAndar hasta la otra y allí se sube a una planta cualquiera. Como nadie llega
+// a otra torre antes de msAndar, cada torre puede simular una ventana de msAndar
+// sin saber nada de las demás y el resultado no depende de quién va más rápido.
+//
+// Uso (lo lanza SimulacionDistribuida): NodoTorre --puerto=0 --sesiones=1
+public class NodoTorre implements Runnable {
+
+	static final long CONFIGURAR = 1;
+	static final long AVANZAR = 2;
+	static final long TERMINAR = 3;
+
+	// Alguien de camino a otra torre: sale de la planta baja de esta
+	private record Transbordo(int torre, long inicio) {
+	}
+
+	// ...y llega a la planta baja de 'torre' en 'llegada'
+	private record Salida(int torre, long llegada, long inicio) {
+	}
+
+	// Cuerpo de una trama escrito con un DataOutputStream
+	interface Escritura {
+		void escribir(DataOutputStream out) throws IOException;
+	}
+
+	private final CanalTramas canal;
+
+	// --- Estado de la sesión (después de CONFIGURAR) ---
+	private int torre;
+	private int torres;
+	private long msAndar;
+	private double transbordos;
+	private SplittableRandom rand;
+	private RegistroSimulacion registro;
+	private ControladorEdificio controlador;
+	private SimuladorEventos simulador;
+	private int siguienteNumero;
+
+	private final Map<Integer, Transbordo> deCamino = new HashMap<>(); // bajando para irse
+	private final Map<Integer, Long> venidos = new HashMap<>(); // de otra torre: inicio del viaje
+	private final List<Salida> salidas = new ArrayList<>();
+	private final List<Long> puertaAPuerta = new ArrayList<>();
+
+	NodoTorre(CanalTramas canal) {
+		this.canal = canal;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int puerto = Integer.parseInt(Main.opcion(args, "puerto", "0"));
+		int sesiones = Integer.parseInt(Main.opcion(args, "sesiones", "1"));
+		try (ServerSocket servidor = new ServerSocket(puerto, 50, InetAddress.getLoopbackAddress())) {
+			System.out.println("Torre escuchando en el puerto " + servidor.getLocalPort());
+			servir(servidor, sesiones);
+		}
+	}
+
+	// Atiende 'sesiones' conexiones, una torre en su hilo cada una, y vuelve
+	// cuando han terminado todas
+	static void servir(ServerSocket servidor, int sesiones) throws IOException, InterruptedException {
+		List<Thread> hilos = new ArrayList<>();
+		for (int i = 0; i < sesiones; i++) {
+			CanalTramas canal = new CanalTramas(servidor.accept());
+			hilos.add(Thread.ofPlatform().name("torre-" + i).start(new NodoTorre(canal)));
+		}
+		for (Thread hilo : hilos) {
+			hilo.join();
+		}
+	}
+
+	@Override
+	public void run() {
+		try (canal) {
+			CanalTramas.Trama trama;
+			while ((trama = canal.recibir()) != null) {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(trama.cuerpo()));
+				long orden = trama.id();
+				if (orden == CONFIGURAR) {
+					configurar(in);
+					canal.enviar(orden, new byte[0]);
+				} else if (orden == AVANZAR) {
+					canal.enviar(orden, avanzar(in));
+				} else if (orden == TERMINAR) {
+					canal.enviar(orden, terminar());
+					return;
+				} else {
+					throw new IOException("Orden desconocida: " + orden);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// Al cerrar la conexión el coordinador se entera y aborta
+			System.err.println("Torre " + torre + ": " + e);
+		}
+	}
+
+	// --- Órdenes ---
+
+	private void configurar(DataInputStream in) throws IOException {
+		torre = in.readInt();
+		torres = in.readInt();
+		Properties propiedades = new Properties();
+		propiedades.load(new StringReader(in.readUTF()));
+		DispatchStrategy despacho = DispatchStrategy.porNombre(in.readUTF());
+		PerfilTrafico perfil = PerfilTrafico.porNombre(in.readUTF());
+		double tasa = in.readDouble();
+		int personas = in.readInt();
+		long semilla = in.readLong();
+		transbordos = in.readDouble();
+		msAndar = in.readLong();
+
+		registro = new RegistroSimulacion(NivelRegistro.APAGADO);
+		controlador = ConfiguracionEdificio.desde(propiedades).crearControlador(despacho, registro);
+		simulador = new SimuladorEventos(controlador);
+		simulador.setAlBajar(this::alBajar);
+
+		// Cada torre con su semilla: mismas opciones, misma simulación
+		SplittableRandom raiz = new SplittableRandom(semilla + torre);
+		rand = raiz.split();
+		siguienteNumero = personas + 1; // los que vienen de fuera, después de los de aquí
+		simulador.añadirLlegadas(new Locales(GeneradorTrafico.perfil(controlador, perfil, tasa, personas, raiz.split())));
+	}
+
+	private byte[] avanzar(DataInputStream in) throws IOException {
+		long hasta = in.readLong();
+		int llegan = in.readInt();
+		int plantas = controlador.getPlantas();
+		for (int i = 0; i < llegan; i++) {
+			long llegada = in.readLong();
+			long inicio = in.readLong();
+			int destino;
+			do {
+				destino = 1 + rand.nextInt(plantas - 1);
+			} while (!controlador.hayAscensorPara(0, destino));
+			int numero = siguienteNumero++;
+			venidos.put(numero, inicio);
+			simulador.añadirPersona(new Persona(numero, controlador, 0, destino, llegada));
+		}
+
+		simulador.ejecutarHasta(hasta);
+
+		byte[] respuesta = cuerpo(out -> {
+			out.writeLong(simulador.getProximoEvento());
+			out.writeInt(salidas.size());
+			for (Salida salida : salidas) {
+				out.writeInt(salida.torre());
+				out.writeLong(salida.llegada());
+				out.writeLong(salida.inicio());
+			}
+		});
+		salidas.clear();
+		return respuesta;
+	}
+
+	private byte[] terminar() throws IOException {
+		registro.cerrar();
+		MetricasViaje metricas = controlador.getMetricasViaje();
+		long[] esperas = metricas.copia(true);
+		long[] viajes = metricas.copia(false);
+		return cuerpo(out -> {
+			out.writeLong(simulador.getAhora());
+			out.writeInt(esperas.length);
+			for (int i = 0; i < esperas.length; i++) {
+				out.writeLong(esperas[i]);
+				out.writeLong(viajes[i]);
+			}
+			out.writeInt(puertaAPuerta.size());
+			for (long ms : puertaAPuerta) {
+				out.writeLong(ms);
+			}
+			Ascensor[] ascensores = controlador.getAscensores();
+			out.writeInt(ascensores.length);
+			for (Ascensor ascensor : ascensores) {
+				out.writeLong(ascensor.getMsOcupado());
+			}
+		});
+	}
+
+	// --- Transbordos ---
+
+	// Alguien ha terminado un viaje en esta torre: o baja para irse a otra, o
+	// viene de otra y ha llegado a su destino final
+	private void alBajar(Persona persona) {
+		Transbordo transbordo = deCamino.remove(persona.getNumero());
+		if (transbordo != null) {
+			salidas.add(new Salida(transbordo.torre(), simulador.getAhora() + msAndar, transbordo.inicio()));
+		}
+		Long inicio = venidos.remove(persona.getNumero());
+		if (inicio != null) {
+			puertaAPuerta.add(simulador.getAhora() - inicio);
+		}
+	}
+
+	// Decide si la persona generada se queda en la torre o va a otra. Devuelve
+	// quién hace el tramo en esta torre, o null si sale andando desde la planta baja
+	private Persona repartir(Persona persona) {
+		if (torres < 2 || rand.nextDouble() >= transbordos) {
+			return persona;
+		}
+		int destino = rand.nextInt(torres - 1);
+		if (destino >= torre) {
+			destino++;
+		}
+		int origen = persona.getPisoOrigen();
+		if (origen == 0) {
+			salidas.add(new Salida(destino, persona.getRetraso() + msAndar, persona.getRetraso()));
+			return null;
+		}
+		if (!controlador.hayAscensorPara(origen, 0)) {
+			return persona;
+		}
+		deCamino.put(persona.getNumero(), new Transbordo(destino, persona.getRetraso()));
+		return new Persona(persona.getNumero(), controlador, origen, 0, persona.getRetraso());
+	}
+
+	// Las llegadas del generador de la torre, ya repartidas
+	private final class Locales implements Iterator<Persona> {
+
+		private final Iterator<Persona> generador;
+		private Persona siguiente;
+
+		Locales(Iterator<Persona> generador) {
+			this.generador = generador;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (siguiente == null && generador.hasNext()) {
+				siguiente = repartir(generador.next());
+			}
+			return siguiente != null;
+		}
+
+		@Override
+		public Persona next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Persona persona = siguiente;
+			siguiente = null;
+			return persona;
+		}
+	}
+
+	static byte[] cuerpo(Escritura escritura) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		escritura.escribir(out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+}
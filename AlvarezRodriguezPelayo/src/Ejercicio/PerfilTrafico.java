@@ -0,0 +1,71 @@
+package Ejercicio;
+
+// Patrones de tráfico típicos de un edificio de oficinas. Cada uno dice qué
+// parte de los viajes entra desde la planta baja, qué parte sale hacia ella y
+// cuál es entre plantas, y da la forma de la curva de llegadas a lo largo del
+// periodo (pares instante/tasa, en fracción de la duración y de la tasa pico).
+public enum PerfilTrafico {
+	// Origen y destino al azar entre todas las plantas, tasa constante (como siempre)
+	UNIFORME(0, 0, new double[] { 0, 1, 1, 1 }),
+	// Mañana: casi todo el mundo entra por la planta baja; la tasa sube, se
+	// mantiene y baja
+	SUBIDA(0.85, 0.05, new double[] { 0, 0.3, 0.4, 1, 0.6, 1, 1, 0.3 }),
+	// Tarde: lo mismo al revés, todos hacia la planta baja
+	BAJADA(0.05, 0.85, new double[] { 0, 0.3, 0.4, 1, 0.6, 1, 1, 0.3 }),
+	// Mediodía: salen a comer y vuelven; dos picos, en los dos sentidos
+	COMIDA(0.40, 0.40, new double[] { 0, 0.5, 0.25, 1, 0.5, 0.6, 0.75, 1, 1, 0.5 }),
+	// Resto del día: viajes entre plantas, sin pasar por la planta baja
+	ENTREPISOS(0, 0, new double[] { 0, 1, 1, 1 });
+
+	private final double entrada;
+	private final double salida;
+	private final double[] curva;
+
+	PerfilTrafico(double entrada, double salida, double[] curva) {
+		this.entrada = entrada;
+		this.salida = salida;
+		this.curva = curva;
+	}
+
+	// Fracción de viajes planta baja -> otra planta
+	public double getEntrada() {
+		return entrada;
+	}
+
+	// Fracción de viajes otra planta -> planta baja
+	public double getSalida() {
+		return salida;
+	}
+
+	// Curva de llegadas para un periodo concreto, con la tasa pico (llegadas/s) y
+	// la duración dadas: pares segundo/tasa, como los de --curva
+	public double[] curva(double tasaPico, double segundos) {
+		double[] puntos = new double[curva.length];
+		for (int i = 0; i < curva.length; i += 2) {
+			puntos[i] = curva[i] * segundos;
+			puntos[i + 1] = curva[i + 1] * tasaPico;
+		}
+		return puntos;
+	}
+
+	// Tasa media de la curva respecto a la de pico (para ajustar la duración)
+	public double mediaCurva() {
+		double area = 0;
+		for (int i = 2; i < curva.length; i += 2) {
+			area += (curva[i] - curva[i - 2]) * (curva[i + 1] + curva[i - 1]) / 2;
+		}
+		return area;
+	}
+
+	// Selección por nombre desde la línea de comandos (--trafico=...)
+	public static PerfilTrafico porNombre(String nombre) {
+		return switch (nombre) {
+		case "uniforme" -> UNIFORME;
+		case "subida" -> SUBIDA;
+		case "bajada" -> BAJADA;
+		case "comida" -> COMIDA;
+		case "entrepisos" -> ENTREPISOS;
+		default -> throw new IllegalArgumentException("Perfil de tráfico desconocido: " + nombre);
+		};
+	}
+}
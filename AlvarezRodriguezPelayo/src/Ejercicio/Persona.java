@@ -1,60 +1,161 @@
 package Ejercicio;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Persona implements Runnable {
 
 	private final String id;
+	private final int numero;
 	private final ControladorEdificio controlador;
 	private final int pisoOrigen;
 	private final int pisoDestino;
 	private final Direccion direccion;
-	private static final Random rand = new Random();
+	// Retraso de llegada (ms desde el inicio). Se decide al crearla para que
+	// ambos motores (hilos y eventos) vean la misma llegada con la misma semilla
+	private final long retraso;
+
+	// Instantes (ms de controlador.ahoraMs()) para las métricas de espera y viaje
+	private long llegada;
+	private long embarque;
+	// Con despacho por destino, el ascensor que le ha tocado (lo pone el controlador)
+	private int ascensorAsignado = DispatchStrategy.SIN_ASIGNAR;
 
 	public Persona(int idNum, ControladorEdificio controlador) {
+		this(idNum, controlador, new SplittableRandom());
+	}
+
+	public Persona(int idNum, ControladorEdificio controlador, SplittableRandom raiz) {
+		this(idNum, controlador, raiz, -1);
+	}
+
+	// Con 'retraso' >= 0 la llegada la fija quien crea la persona (p. ej. las
+	// llegadas de Poisson de SimulacionPorLotes); si no, se sortea como siempre
+	public Persona(int idNum, ControladorEdificio controlador, SplittableRandom raiz, long retraso) {
 		this.id = String.format("P%03d", idNum);
+		this.numero = idNum;
 		this.controlador = controlador;
 
-		// Generar origen y destino aleatorios (distintos)
-		this.pisoOrigen = rand.nextInt(ControladorEdificio.PLANTAS);
+		// Cada persona tiene su propio generador, separado del de quien la crea: nada
+		// de un Random compartido entre hilos, y con la misma semilla sale lo mismo
+		SplittableRandom rand = raiz.split();
+
+		// Generar origen y destino aleatorios (distintos). Con zonas, solo viajes que
+		// algún ascensor hace sin transbordos (los ascensores ya deben estar registrados)
+		int plantas = controlador.getPlantas();
+		int origen;
 		int dest;
 		do {
-			dest = rand.nextInt(ControladorEdificio.PLANTAS);
-		} while (dest == this.pisoOrigen);
+			origen = rand.nextInt(plantas);
+			do {
+				dest = rand.nextInt(plantas);
+			} while (dest == origen);
+		} while (!controlador.hayAscensorPara(origen, dest));
+		this.pisoOrigen = origen;
 		this.pisoDestino = dest;
 
 		this.direccion = (pisoDestino > pisoOrigen) ? Direccion.SUBIENDO : Direccion.BAJANDO;
+
+		// Llegada escalonada (0.5 a 2 segundos)
+		this.retraso = retraso >= 0 ? retraso : 500 + rand.nextInt(1501);
+	}
+
+	// Viaje concreto, ya decidido por quien crea la persona (GeneradorTrafico,
+	// TrazaTrafico). Llega 'retraso' ms después del inicio de la simulación
+	public Persona(int idNum, ControladorEdificio controlador, int pisoOrigen, int pisoDestino, long retraso) {
+		int plantas = controlador.getPlantas();
+		if (pisoOrigen < 0 || pisoOrigen >= plantas || pisoDestino < 0 || pisoDestino >= plantas
+				|| pisoOrigen == pisoDestino || retraso < 0) {
+			throw new IllegalArgumentException("Viaje no válido: " + pisoOrigen + " -> " + pisoDestino + " a los "
+					+ retraso + " ms");
+		}
+		this.id = String.format("P%03d", idNum);
+		this.numero = idNum;
+		this.controlador = controlador;
+		this.pisoOrigen = pisoOrigen;
+		this.pisoDestino = pisoDestino;
+		this.direccion = (pisoDestino > pisoOrigen) ? Direccion.SUBIENDO : Direccion.BAJANDO;
+		this.retraso = retraso;
 	}
 
 	@Override
 	public void run() {
 		try {
-			// 1. Llegada escalonada (0.5 a 2 segundos)
-			int retraso = 500 + rand.nextInt(1501);
-			TimeUnit.MILLISECONDS.sleep(retraso);
+			// 1. Llegada escalonada: 'retraso' cuenta desde el inicio de la simulación,
+			// no desde que arranca el hilo (las personas de un GeneradorTrafico se
+			// lanzan justo a su hora)
+			TimeUnit.MILLISECONDS.sleep(Math.max(0, retraso - controlador.ahoraMs()));
 
 			// 2. Comprobar pausa
 			controlador.comprobarPausa();
 
 			// 3. Llamar al ascensor y ESPERAR a que llegue y tenga sitio
-			Ascensor ascensor = controlador.llamarYEsperarAscensor(id, pisoOrigen, direccion);
+			llegar();
+			Ascensor ascensor = controlador.llamarYEsperarAscensor(this, pisoOrigen, direccion);
 
 			// 4. Subir al ascensor y seleccionar destino
-			ascensor.seleccionarDestino(pisoDestino);
-			controlador.imprimirEstado(String.format(">>>> %s (piso %d) selecciona destino %d en ascensor %d", id,
-					pisoOrigen, pisoDestino, ascensor.getIdAscensor()));
+			subirA(ascensor);
 
 			// 5. Esperar DENTRO del ascensor hasta llegar al destino
 			ascensor.esperarLlegadaADestino(pisoDestino);
 
 			// 6. Bajar del ascensor (liberar capacidad)
-			ascensor.getCapacidad().release();
-			controlador.imprimirEstado(
-					String.format("<<<< %s baja del ascensor en piso %d. (Destino cumplido)", id, pisoDestino));
+			bajarDe(ascensor);
 
 		} catch (InterruptedException e) {
 			System.out.println("Persona " + id + " interrumpida.");
 		}
 	}
+
+	// --- Pasos del viaje (compartidos con el motor de eventos) ---
+
+	void llegar() {
+		llegada = controlador.ahoraMs();
+	}
+
+	void subirA(Ascensor ascensor) {
+		embarque = controlador.ahoraMs();
+		ascensor.seleccionarDestino(pisoDestino);
+		controlador.getRegistro().registrar(TipoRegistro.PERSONA_DESTINO, numero, pisoOrigen, pisoDestino,
+				ascensor.getIdAscensor());
+	}
+
+	void bajarDe(Ascensor ascensor) {
+		ascensor.liberarPlaza();
+		controlador.getMetricasViaje().viaje(embarque - llegada, controlador.ahoraMs() - embarque);
+		controlador.getRegistro().registrar(TipoRegistro.PERSONA_BAJA, numero, pisoDestino);
+	}
+
+	// --- Getters ---
+	public String getId() {
+		return id;
+	}
+
+	public int getNumero() {
+		return numero;
+	}
+
+	public int getPisoOrigen() {
+		return pisoOrigen;
+	}
+
+	public int getPisoDestino() {
+		return pisoDestino;
+	}
+
+	public Direccion getDireccion() {
+		return direccion;
+	}
+
+	public long getRetraso() {
+		return retraso;
+	}
+
+	public int getAscensorAsignado() {
+		return ascensorAsignado;
+	}
+
+	void setAscensorAsignado(int ascensorAsignado) {
+		this.ascensorAsignado = ascensorAsignado;
+	}
 }
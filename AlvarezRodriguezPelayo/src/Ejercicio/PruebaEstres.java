@@ -0,0 +1,105 @@
+package Ejercicio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Modo estrés: ejecuta la simulación con hilos, muchos ascensores y personas,
+// primero con notificación global (se despierta a todo el piso) y después con
+// la dirigida (colas FIFO por sentido: el ascensor despierta solo a los que
+// admite), y compara despertares, retención de locks y cambios de contexto.
+// Con -Dejercicio.instrumentacion=true saca también, en cada modo, el informe
+// de locks y operaciones de Instrumentacion.
+//
+// Uso: PruebaEstres --ascensores=8 --personas=2000 --ms-piso=2 --despacho=eta
+//                   --hilos=plataforma|virtuales --solo-dirigida=false
+public class PruebaEstres {
+
+	public static void main(String[] args) throws InterruptedException {
+		int numAscensores = Integer.parseInt(Main.opcion(args, "ascensores", "8"));
+		int personas = Integer.parseInt(Main.opcion(args, "personas", "2000"));
+		long msPorPiso = Long.parseLong(Main.opcion(args, "ms-piso", "2"));
+		String despacho = Main.opcion(args, "despacho", "eta");
+		long semilla = Long.parseLong(Main.opcion(args, "semilla", "1"));
+		ModoHilos hilos = ModoHilos.porNombre(Main.opcion(args, "hilos", "plataforma"));
+		// Con 100k personas el modo global (signalAll) no termina en un tiempo razonable
+		boolean soloDirigida = Boolean.parseBoolean(Main.opcion(args, "solo-dirigida", "false"));
+
+		PrintStream consola = System.out;
+		for (boolean global : soloDirigida ? new boolean[] { false } : new boolean[] { true, false }) {
+			// El log de la simulación no interesa aquí (y taparía lo que se mide)
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			Instrumentacion.reiniciar();
+			long cambiosAntes = cambiosDeContexto();
+			long inicio = System.nanoTime();
+
+			RegistroSimulacion registro = new RegistroSimulacion(NivelRegistro.APAGADO);
+			ControladorEdificio controlador = new ControladorEdificio(numAscensores,
+					DispatchStrategy.porNombre(despacho), registro);
+			controlador.setNotificacionGlobal(global);
+			ExecutorService poolAscensores = hilos.poolAscensores(numAscensores);
+			for (int i = 0; i < numAscensores; i++) {
+				Ascensor ascensor = new Ascensor(i, controlador, msPorPiso);
+				controlador.registrarAscensor(i, ascensor);
+				poolAscensores.submit(ascensor);
+			}
+
+			ExecutorService poolPersonas = hilos.poolPersonas();
+			CountDownLatch terminadas = new CountDownLatch(personas);
+			SplittableRandom rand = new SplittableRandom(semilla);
+			for (int i = 0; i < personas; i++) {
+				Persona persona = new Persona(i + 1, controlador, rand);
+				poolPersonas.submit(() -> {
+					persona.run();
+					terminadas.countDown();
+				});
+			}
+			terminadas.await();
+
+			// Se leen antes de parar los pools, mientras sus hilos siguen vivos
+			long cambios = cambiosDeContexto() - cambiosAntes;
+			long ms = (System.nanoTime() - inicio) / 1_000_000;
+			poolPersonas.shutdownNow();
+			poolAscensores.shutdownNow();
+			poolAscensores.awaitTermination(1, TimeUnit.SECONDS);
+			registro.cerrar();
+
+			System.setOut(consola);
+			System.out.println(String.format("%-9s %s, %d personas, %d ms, cambios de contexto=%s, %s",
+					global ? "global" : "dirigida", hilos, personas, ms, cambios < 0 ? "n/d" : String.valueOf(cambios),
+					controlador.getMetricas()));
+			System.out.print(Instrumentacion.informe());
+		}
+	}
+
+	// Suma de cambios de contexto de los hilos vivos del proceso (solo Linux, -1 si
+	// el sistema no lo expone en /proc)
+	private static long cambiosDeContexto() {
+		Path tareas = Path.of("/proc/self/task");
+		if (!Files.isDirectory(tareas)) {
+			return -1;
+		}
+		long total = 0;
+		try (Stream<Path> hilos = Files.list(tareas)) {
+			for (Path hilo : (Iterable<Path>) hilos::iterator) {
+				try {
+					total += Files.readAllLines(hilo.resolve("status")).stream()
+							.filter(l -> l.contains("ctxt_switches"))
+							.mapToLong(l -> Long.parseLong(l.substring(l.indexOf(':') + 1).trim())).sum();
+				} catch (IOException e) {
+					// El hilo terminó mientras se leía
+				}
+			}
+		} catch (IOException e) {
+			return -1;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,110 @@
+package Ejercicio;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Puerta de pausa sin locks. Con la simulación en marcha, pasar es leer un
+// volatile; solo con la puerta cerrada se aparca el hilo (LockSupport.park) hasta
+// que se abre. Con la puerta cerrada se puede dejar a cada ascensor dar unas
+// vueltas más a su bucle (avanzar) para ver paso a paso qué decide el despacho;
+// las personas siguen paradas hasta que se abre.
+public class PuertaPausa {
+
+	private volatile boolean cerrada = false;
+
+	// Vueltas que aún puede dar cada ascensor con la puerta cerrada
+	private final AtomicIntegerArray pasos;
+	// Hilo de cada ascensor aparcado en la puerta (o null)
+	private final AtomicReferenceArray<Thread> ascensoresParados;
+	// Personas aparcadas en la puerta
+	private final ConcurrentLinkedQueue<Thread> personasParadas = new ConcurrentLinkedQueue<>();
+
+	public PuertaPausa(int numAscensores) {
+		this.pasos = new AtomicIntegerArray(numAscensores);
+		this.ascensoresParados = new AtomicReferenceArray<>(numAscensores);
+	}
+
+	public boolean isCerrada() {
+		return cerrada;
+	}
+
+	public void cerrar() {
+		cerrada = true;
+	}
+
+	// Abre y despierta a todos los aparcados. Los pasos que sobraran se pierden
+	public void abrir() {
+		cerrada = false;
+		for (int i = 0; i < pasos.length(); i++) {
+			pasos.set(i, 0);
+			LockSupport.unpark(ascensoresParados.get(i));
+		}
+		Thread persona;
+		while ((persona = personasParadas.poll()) != null) {
+			LockSupport.unpark(persona);
+		}
+	}
+
+	// Con la puerta cerrada, deja a cada ascensor dar 'n' vueltas más
+	public void avanzar(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("Hay que avanzar al menos un paso: " + n);
+		}
+		for (int i = 0; i < pasos.length(); i++) {
+			pasos.addAndGet(i, n);
+			LockSupport.unpark(ascensoresParados.get(i));
+		}
+	}
+
+	// Una vuelta del bucle del ascensor 'id'
+	public void pasar(int id) throws InterruptedException {
+		if (!cerrada) {
+			return; // camino rápido
+		}
+		Thread yo = Thread.currentThread();
+		while (cerrada && !gastarPaso(id)) {
+			// Primero apuntarse y luego volver a mirar: si abrir() o avanzar() llegan
+			// entre medias, ya ven este hilo y el park vuelve enseguida
+			ascensoresParados.set(id, yo);
+			if (cerrada && pasos.get(id) == 0) {
+				LockSupport.park(this);
+			}
+			ascensoresParados.set(id, null);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	// Para las personas: esperan a que se abra, sin pasos
+	public void pasar() throws InterruptedException {
+		if (!cerrada) {
+			return; // camino rápido
+		}
+		Thread yo = Thread.currentThread();
+		while (cerrada) {
+			personasParadas.add(yo);
+			if (cerrada) {
+				LockSupport.park(this);
+			}
+			personasParadas.remove(yo); // normalmente ya lo ha sacado abrir()
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	private boolean gastarPaso(int id) {
+		while (true) {
+			int quedan = pasos.get(id);
+			if (quedan == 0) {
+				return false;
+			}
+			if (pasos.compareAndSet(id, quedan, quedan - 1)) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package Ejercicio;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Con despacho por destino, las personas que el despacho ha dado a un ascensor y
+// aún esperan fuera: cuántas hay en cada piso y sentido (adónde tiene que ir a
+// recogerlas), adónde van (qué paradas le suponen) y cuántas son en total (la
+// carga que ya tiene comprometida). Las apunta quien llama y las quita quien
+// sube o pasa a otro ascensor; el ascensor y el despacho las leen sin lock.
+public class RecogidasAscensor {
+
+	private final AtomicIntegerArray subir;
+	private final AtomicIntegerArray bajar;
+	private final AtomicIntegerArray destinos;
+	private final AtomicInteger total = new AtomicInteger();
+
+	public RecogidasAscensor(int plantas) {
+		this.subir = new AtomicIntegerArray(plantas);
+		this.bajar = new AtomicIntegerArray(plantas);
+		this.destinos = new AtomicIntegerArray(plantas);
+	}
+
+	void apuntar(Persona persona) {
+		sumar(persona, 1);
+	}
+
+	void quitar(Persona persona) {
+		sumar(persona, -1);
+	}
+
+	private void sumar(Persona persona, int delta) {
+		(persona.getDireccion() == Direccion.SUBIENDO ? subir : bajar).addAndGet(persona.getPisoOrigen(), delta);
+		destinos.addAndGet(persona.getPisoDestino(), delta);
+		total.addAndGet(delta);
+	}
+
+	// Personas suyas esperando en 'piso' para ir en 'dir'
+	public int esperan(int piso, Direccion dir) {
+		return (dir == Direccion.SUBIENDO ? subir : bajar).get(piso);
+	}
+
+	// Personas suyas, aún fuera, que van a 'piso'
+	public int vanA(int piso) {
+		return destinos.get(piso);
+	}
+
+	public int getTotal() {
+		return total.get();
+	}
+}
@@ -0,0 +1,99 @@
+package Ejercicio;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Conjunto de pisos sin locks: un bit por piso en un long[]. Encender y apagar
+// son un único OR/AND atómico sobre la palabra del piso (nada de cajas Integer
+// ni nodos de ConcurrentHashMap), y "la próxima llamada por encima/debajo de X"
+// mira como mucho una palabra por cada 64 pisos.
+public class RegistroPisos {
+
+	private static final VarHandle PALABRA = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final long[] palabras;
+
+	public RegistroPisos(int plantas) {
+		this.palabras = new long[(plantas + 63) >>> 6];
+	}
+
+	// Devuelve true si el piso estaba apagado
+	public boolean encender(int piso) {
+		long bit = 1L << piso;
+		return ((long) PALABRA.getAndBitwiseOr(palabras, piso >>> 6, bit) & bit) == 0;
+	}
+
+	// Devuelve true si el piso estaba encendido
+	public boolean apagar(int piso) {
+		long bit = 1L << piso;
+		return ((long) PALABRA.getAndBitwiseAnd(palabras, piso >>> 6, ~bit) & bit) != 0;
+	}
+
+	public boolean contiene(int piso) {
+		return (palabra(piso >>> 6) & (1L << piso)) != 0;
+	}
+
+	public boolean vacio() {
+		for (int i = 0; i < palabras.length; i++) {
+			if (palabra(i) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int contar() {
+		int total = 0;
+		for (int i = 0; i < palabras.length; i++) {
+			total += Long.bitCount(palabra(i));
+		}
+		return total;
+	}
+
+	// Primer piso encendido >= desde, o -1 si no hay
+	public int siguiente(int desde) {
+		if (desde < 0) {
+			desde = 0;
+		}
+		int i = desde >>> 6;
+		if (i >= palabras.length) {
+			return -1;
+		}
+		long bits = palabra(i) & (-1L << desde);
+		while (true) {
+			if (bits != 0) {
+				return (i << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			if (++i == palabras.length) {
+				return -1;
+			}
+			bits = palabra(i);
+		}
+	}
+
+	// Último piso encendido <= desde, o -1 si no hay
+	public int anterior(int desde) {
+		if (desde < 0) {
+			return -1;
+		}
+		int i = desde >>> 6;
+		if (i >= palabras.length) {
+			i = palabras.length - 1;
+			desde = -1; // toda la última palabra
+		}
+		long bits = palabra(i) & (-1L >>> (63 - (desde & 63)));
+		while (true) {
+			if (bits != 0) {
+				return (i << 6) + 63 - Long.numberOfLeadingZeros(bits);
+			}
+			if (--i < 0) {
+				return -1;
+			}
+			bits = palabra(i);
+		}
+	}
+
+	private long palabra(int i) {
+		return (long) PALABRA.getVolatile(palabras, i);
+	}
+}
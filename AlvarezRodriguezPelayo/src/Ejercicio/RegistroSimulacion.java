@@ -0,0 +1,206 @@
+package Ejercicio;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Log asíncrono de la simulación. Los hilos de ascensores y personas dejan cada
+// evento en un buffer circular sin locks (solo tipo y enteros, sin String.format)
+// y un único hilo consumidor les da formato y los escribe por lotes. Con un
+// DiarioSimulacion (setDiario) todos los eventos se guardan además en binario,
+// aunque el nivel del log sea APAGADO. El buffer y el consumidor se crean con
+// el primer evento que se escribe: un registro APAGADO no reserva memoria ni
+// deja un hilo sondeando.
+public class RegistroSimulacion {
+
+	private static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+	private static final int LOTE = 1024; // máximo de líneas por escritura
+	private static final long ESPERA_NANOS = 1_000_000; // sondeo del consumidor sin trabajo
+
+	private volatile NivelRegistro nivel;
+	private final PrintStream destino;
+
+	// --- Buffer circular (varios productores, un consumidor) ---
+	// Los arrays los crea iniciar() antes de publicar 'consumidor' (volatile)
+	private final int capacidad;
+	private final int mascara;
+	private int[] tipos;
+	private int[] as;
+	private int[] bs;
+	private int[] cs;
+	private int[] ds;
+	private String[] textos;
+	// publicados[i] == secuencia + 1 cuando el hueco i ya tiene ese evento escrito
+	private AtomicLongArray publicados;
+	private final AtomicLong siguiente = new AtomicLong(); // próximo hueco a reservar
+	private volatile long consumidos = 0; // todo lo anterior ya está escrito
+
+	private volatile Thread consumidor; // null hasta el primer evento
+	private volatile boolean cerrado = false;
+
+	// Diario binario (opcional): recibe todos los eventos, sea cual sea el nivel
+	private volatile DiarioSimulacion diario;
+
+	public RegistroSimulacion(NivelRegistro nivel) {
+		this(nivel, System.out, CAPACIDAD_POR_DEFECTO);
+	}
+
+	public RegistroSimulacion(NivelRegistro nivel, PrintStream destino, int capacidad) {
+		if (Integer.bitCount(capacidad) != 1) {
+			throw new IllegalArgumentException("La capacidad debe ser potencia de 2: " + capacidad);
+		}
+		this.nivel = nivel;
+		this.destino = destino;
+		this.capacidad = capacidad;
+		this.mascara = capacidad - 1;
+	}
+
+	// Una sola vez, con el primer evento activo
+	private synchronized void iniciar() {
+		if (consumidor != null) {
+			return;
+		}
+		tipos = new int[capacidad];
+		as = new int[capacidad];
+		bs = new int[capacidad];
+		cs = new int[capacidad];
+		ds = new int[capacidad];
+		textos = new String[capacidad];
+		publicados = new AtomicLongArray(capacidad);
+
+		Thread hilo = new Thread(this::consumir, "registro-simulacion");
+		hilo.setDaemon(true);
+		consumidor = hilo; // después de los arrays: quien lo ve, los ve
+		hilo.start();
+	}
+
+	// --- Camino caliente (productores) ---
+
+	public boolean activo(TipoRegistro tipo) {
+		return tipo.nivel.compareTo(nivel) <= 0;
+	}
+
+	public void registrar(TipoRegistro tipo, int a, int b) {
+		registrar(tipo, a, b, 0, 0);
+	}
+
+	public void registrar(TipoRegistro tipo, int a, int b, int c) {
+		registrar(tipo, a, b, c, 0);
+	}
+
+	public void registrar(TipoRegistro tipo, int a, int b, int c, int d) {
+		DiarioSimulacion diario = this.diario;
+		if (diario != null) {
+			diario.anotar(tipo, a, b, c, d);
+		}
+		if (activo(tipo)) {
+			publicar(tipo, a, b, c, d, null);
+		}
+	}
+
+	public void mensaje(String texto) {
+		if (activo(TipoRegistro.MENSAJE)) {
+			publicar(TipoRegistro.MENSAJE, 0, 0, 0, 0, texto);
+		}
+	}
+
+	private void publicar(TipoRegistro tipo, int a, int b, int c, int d, String texto) {
+		if (cerrado) {
+			return; // después de cerrar() ya no hay quien lo escriba: se descarta
+		}
+		if (consumidor == null) {
+			iniciar();
+		}
+		long secuencia = siguiente.getAndIncrement();
+		// Buffer lleno: se espera al consumidor (el log no pierde líneas mientras
+		// esté abierto; si se cierra o el consumidor muere, nadie lo va a vaciar)
+		while (secuencia - consumidos >= capacidad) {
+			if (cerrado || !consumidor.isAlive()) {
+				return;
+			}
+			LockSupport.parkNanos(1_000);
+		}
+		int i = (int) secuencia & mascara;
+		tipos[i] = tipo.ordinal();
+		as[i] = a;
+		bs[i] = b;
+		cs[i] = c;
+		ds[i] = d;
+		textos[i] = texto;
+		// Escritura con "release": el consumidor ve los campos de arriba al ver esto
+		publicados.lazySet(i, secuencia + 1);
+	}
+
+	// --- Hilo consumidor ---
+
+	private void consumir() {
+		TipoRegistro[] valores = TipoRegistro.values();
+		StringBuilder sb = new StringBuilder(LOTE * 64);
+		long secuencia = 0;
+		while (true) {
+			int n = 0;
+			while (n < LOTE) {
+				int i = (int) secuencia & mascara;
+				if (publicados.get(i) != secuencia + 1) {
+					break;
+				}
+				valores[tipos[i]].formatear(sb, as[i], bs[i], cs[i], ds[i], textos[i]);
+				textos[i] = null;
+				secuencia++;
+				n++;
+			}
+
+			if (n > 0) {
+				consumidos = secuencia; // libera los huecos para los productores
+				destino.print(sb);
+				destino.flush();
+				sb.setLength(0);
+			} else if (cerrado) {
+				return;
+			} else {
+				LockSupport.parkNanos(ESPERA_NANOS);
+			}
+		}
+	}
+
+	// Espera a que todo lo registrado hasta ahora se haya escrito
+	public void vaciar() {
+		Thread consumidor = this.consumidor;
+		if (consumidor == null) {
+			return; // nunca se ha escrito nada
+		}
+		long objetivo = siguiente.get();
+		while (consumidos < objetivo && consumidor.isAlive()) {
+			LockSupport.parkNanos(ESPERA_NANOS);
+		}
+	}
+
+	// Escribe lo pendiente y termina el hilo consumidor
+	public void cerrar() {
+		vaciar();
+		cerrado = true;
+		Thread consumidor = this.consumidor;
+		if (consumidor != null) {
+			LockSupport.unpark(consumidor);
+		}
+	}
+
+	// --- Getters/Setters ---
+	public NivelRegistro getNivel() {
+		return nivel;
+	}
+
+	public void setNivel(NivelRegistro nivel) {
+		this.nivel = nivel;
+	}
+
+	// A partir de aquí los eventos van también al diario (null para dejarlo)
+	public void setDiario(DiarioSimulacion diario) {
+		this.diario = diario;
+	}
+
+	public long getEventosRegistrados() {
+		return siguiente.get();
+	}
+}
@@ -0,0 +1,276 @@
+package Ejercicio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Lee un DiarioSimulacion registro a registro, sin cargarlo entero: proyecta un
+// SEGMENTO cada vez. Con él se rehace después una ejecución larga, sin haber
+// pagado el log de texto mientras corría:
+//  - reconstruir(): estado final de ascensores y personas, métricas de espera y
+//    viaje (las mismas de MetricasViaje) y utilización aproximada
+//  - reproducir(): el log de texto de siempre, al ritmo original o más rápido
+//    (así lo usa Main para llevar la ventana desde un fichero)
+//
+// Uso: ReproductorDiario --diario=simulacion.diario --texto=info|detalle --velocidad=0
+//
+// Sin --texto, el informe; con --texto, las líneas de ese nivel. --velocidad
+// multiplica el ritmo original (1 = tiempo real); 0 = todo seguido.
+public class ReproductorDiario implements Closeable {
+
+	private static final TipoRegistro[] TIPOS = TipoRegistro.values();
+	private static final Direccion[] DIRECCIONES = Direccion.values();
+
+	private final Path archivo;
+	private final FileChannel canal;
+	private final long registros;
+	private final int plantas;
+	private final int ascensores;
+	private final long inicio;
+
+	// Registro actual (después de siguiente())
+	private long leidos = 0;
+	private MappedByteBuffer segmento;
+	private int numeroSegmento = -1;
+	private TipoRegistro tipo;
+	private int a;
+	private int b;
+	private int c;
+	private int d;
+	private long ms;
+
+	public ReproductorDiario(Path archivo) throws IOException {
+		this.archivo = archivo;
+		this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+		try {
+			long tamaño = canal.size();
+			if (tamaño < DiarioSimulacion.CABECERA) {
+				throw new IOException(archivo + " no es un diario de la simulación (demasiado corto)");
+			}
+			MappedByteBuffer cabecera = canal.map(FileChannel.MapMode.READ_ONLY, 0, DiarioSimulacion.CABECERA);
+			if (cabecera.getInt(0) != DiarioSimulacion.MAGIA) {
+				throw new IOException(archivo + " no es un diario de la simulación");
+			}
+			if (cabecera.getInt(4) != DiarioSimulacion.VERSION
+					|| cabecera.getInt(8) != DiarioSimulacion.TAM_REGISTRO) {
+				throw new IOException(archivo + ": versión de diario no soportada " + cabecera.getInt(4));
+			}
+			this.plantas = cabecera.getInt(12);
+			this.ascensores = cabecera.getInt(16);
+			this.inicio = cabecera.getLong(20);
+			this.registros = (tamaño - DiarioSimulacion.CABECERA) / DiarioSimulacion.TAM_REGISTRO;
+		} catch (IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String archivo = Main.opcion(args, "diario", null);
+		if (archivo == null) {
+			throw new IllegalArgumentException("Falta --diario=fichero");
+		}
+		String texto = Main.opcion(args, "texto", null);
+		double velocidad = Double.parseDouble(Main.opcion(args, "velocidad", "0"));
+		try (ReproductorDiario diario = new ReproductorDiario(Path.of(archivo))) {
+			if (texto != null) {
+				diario.reproducir(System.out, NivelRegistro.porNombre(texto), velocidad);
+			} else {
+				System.out.print(diario.reconstruir());
+			}
+		}
+	}
+
+	// Pasa al siguiente registro. false al final del fichero o en el primer
+	// registro sin completar (la ejecución se cortó ahí)
+	public boolean siguiente() {
+		if (leidos == registros) {
+			return false;
+		}
+		long posicion = DiarioSimulacion.CABECERA + leidos * DiarioSimulacion.TAM_REGISTRO;
+		int n = (int) (posicion / DiarioSimulacion.SEGMENTO);
+		if (n != numeroSegmento) {
+			long desde = (long) n * DiarioSimulacion.SEGMENTO;
+			try {
+				segmento = canal.map(FileChannel.MapMode.READ_ONLY, desde,
+						Math.min(DiarioSimulacion.SEGMENTO, canal.size() - desde));
+			} catch (IOException e) {
+				throw new IllegalStateException("Error leyendo el diario " + archivo, e);
+			}
+			numeroSegmento = n;
+		}
+		int i = (int) (posicion % DiarioSimulacion.SEGMENTO);
+		int t = segmento.getInt(i);
+		if (t <= 0 || t > TIPOS.length) {
+			return false;
+		}
+		tipo = TIPOS[t - 1];
+		a = segmento.getInt(i + 4);
+		b = segmento.getInt(i + 8);
+		c = segmento.getInt(i + 12);
+		d = segmento.getInt(i + 16);
+		ms = segmento.getLong(i + 24);
+		leidos++;
+		return true;
+	}
+
+	// --- Reproducción del log de texto ---
+
+	// Escribe las líneas de 'nivel' con el mismo texto que RegistroSimulacion,
+	// esperando entre una y otra lo que pasó en la simulación / velocidad
+	public void reproducir(PrintStream salida, NivelRegistro nivel, double velocidad) throws InterruptedException {
+		StringBuilder sb = new StringBuilder(128);
+		long primero = -1;
+		long comienzo = System.nanoTime();
+		while (siguiente()) {
+			if (tipo.nivel.compareTo(nivel) > 0) {
+				continue;
+			}
+			if (velocidad > 0) {
+				if (primero < 0) {
+					primero = ms;
+				}
+				long objetivo = comienzo + (long) ((ms - primero) * 1_000_000 / velocidad);
+				long falta = objetivo - System.nanoTime();
+				if (falta > 0) {
+					TimeUnit.NANOSECONDS.sleep(falta);
+				}
+			}
+			tipo.formatear(sb, a, b, c, d, null);
+			salida.print(sb);
+			sb.setLength(0);
+		}
+		salida.flush();
+	}
+
+	// --- Reconstrucción del estado y las métricas ---
+
+	// Una persona según el diario: cuándo llamó, cuándo subió y a qué ascensor
+	private static final class Viajero {
+		long llamada;
+		long embarque = -1;
+		int ascensor = -1;
+	}
+
+	// Recorre el diario (desde donde esté) y devuelve el informe
+	public String reconstruir() {
+		MetricasViaje metricas = new MetricasViaje();
+		Map<Integer, Viajero> viajeros = new HashMap<>();
+		int[] piso = new int[ascensores];
+		Direccion[] sentido = new Direccion[ascensores];
+		int[] dentro = new int[ascensores];
+		int[] pisos = new int[ascensores];
+		int[] paradas = new int[ascensores]; // dejar y recoger en el mismo sitio y momento es una
+		long[] ultimaParada = new long[ascensores]; // ms * plantas + piso de la última contada
+		long[] ocupadoDesde = new long[ascensores]; // -1 = parado sin trabajo
+		long[] msOcupado = new long[ascensores];
+		Arrays.fill(sentido, Direccion.PARADO);
+		Arrays.fill(ocupadoDesde, -1);
+		Arrays.fill(ultimaParada, -1);
+		long fin = 0;
+		long eventos = 0;
+
+		while (siguiente()) {
+			eventos++;
+			fin = Math.max(fin, ms);
+			switch (tipo) {
+			case MENSAJE -> {
+			}
+			case ASCENSOR_PARADO -> {
+				piso[a] = b;
+				sentido[a] = Direccion.PARADO;
+				if (ocupadoDesde[a] >= 0) {
+					msOcupado[a] += ms - ocupadoDesde[a];
+					ocupadoDesde[a] = -1;
+				}
+			}
+			case ASCENSOR_LLEGA, ASCENSOR_DEJA, ASCENSOR_RECOGE -> {
+				if (tipo == TipoRegistro.ASCENSOR_LLEGA) {
+					pisos[a]++;
+				} else if (ultimaParada[a] != ms * plantas + b) {
+					ultimaParada[a] = ms * plantas + b;
+					paradas[a]++;
+				}
+				piso[a] = b;
+				if (tipo != TipoRegistro.ASCENSOR_DEJA) {
+					sentido[a] = DIRECCIONES[c];
+				}
+				if (ocupadoDesde[a] < 0) {
+					ocupadoDesde[a] = ms;
+				}
+			}
+			case PERSONA_LLAMA -> viajeros.computeIfAbsent(a, n -> new Viajero()).llamada = ms;
+			case PERSONA_ENTRA -> {
+			}
+			case PERSONA_DESTINO -> {
+				Viajero viajero = viajeros.computeIfAbsent(a, n -> new Viajero());
+				viajero.embarque = ms;
+				viajero.ascensor = d;
+				dentro[d]++;
+			}
+			case PERSONA_BAJA -> {
+				Viajero viajero = viajeros.remove(a);
+				if (viajero != null && viajero.ascensor >= 0) {
+					dentro[viajero.ascensor]--;
+					metricas.viaje(viajero.embarque - viajero.llamada, ms - viajero.embarque);
+				}
+			}
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(String.format("diario=%s plantas=%d ascensores=%d registros=%d inicio=%s%n",
+				archivo, plantas, ascensores, eventos, Instant.ofEpochMilli(inicio)));
+		sb.append(metricas.resumen(fin));
+		sb.append("utilización (aprox.):");
+		for (int i = 0; i < ascensores; i++) {
+			long usado = msOcupado[i] + (ocupadoDesde[i] >= 0 ? fin - ocupadoDesde[i] : 0);
+			sb.append(String.format(" A%d=%.0f%%", i, fin == 0 ? 0 : Math.min(1, (double) usado / fin) * 100));
+		}
+		sb.append(System.lineSeparator());
+		for (int i = 0; i < ascensores; i++) {
+			sb.append(String.format("A%d: piso %d %s, %d dentro, %d pisos recorridos, %d paradas%n", i, piso[i],
+					sentido[i], dentro[i], pisos[i], paradas[i]));
+		}
+		int esperando = 0;
+		int enCamino = 0;
+		for (Viajero viajero : viajeros.values()) {
+			if (viajero.ascensor < 0) {
+				esperando++;
+			} else {
+				enCamino++;
+			}
+		}
+		sb.append(String.format("sin terminar: %d esperando, %d dentro de un ascensor%n", esperando, enCamino));
+		if (leidos < registros) {
+			sb.append(String.format("aviso: el diario se corta en el registro %d de %d%n", leidos, registros));
+		}
+		return sb.toString();
+	}
+
+	// --- Getters ---
+	public int getPlantas() {
+		return plantas;
+	}
+
+	public int getAscensores() {
+		return ascensores;
+	}
+
+	public long getRegistros() {
+		return registros;
+	}
+
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+}
@@ -0,0 +1,281 @@
+package Ejercicio;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import unidad3.echo.CanalTramas;
+
+// Un campus de varias torres, cada una simulada por un NodoTorre con su propio
+// controlador y motor de eventos. Las torres se reparten entre --procesos JVMs
+// (0 = todas en esta, en hilos) y este proceso las coordina por sockets de
+// loopback con el protocolo de tramas de unidad3.echo: lleva a cada torre la
+// gente que llega andando desde otras y junta las métricas al final.
+//
+// Las torres avanzan a la vez en ventanas de --ms-andar (lo que se tarda en ir
+// de una torre a otra): quien sale de una torre en una ventana llega a la otra
+// en la siguiente, así que entre ventanas basta con repartir a los que se van.
+// Con la misma semilla sale siempre lo mismo, se use el número de procesos que
+// se use; al haber más procesos caben más torres o se acaba antes.
+//
+// Uso: SimulacionDistribuida --torres=4 --procesos=4 --personas=1000 --tasa=0.5
+//                            --trafico=uniforme --transbordos=0.1 --ms-andar=60000
+//                            --edificio=a.properties,b.properties --plantas=21
+//                            --ascensores=2 --ms-piso=500 --despacho=libre --semilla=1
+//
+// --personas y --tasa son por torre. Con --edificio cada torre usa un fichero (si
+// hay menos que torres se repiten en orden); si no, todas son iguales, con
+// --plantas, --ascensores y --ms-piso. --transbordos es la fracción de viajes que
+// acaba en otra torre: bajar a la planta baja, andar y subir en la otra.
+public class SimulacionDistribuida {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int torres = Integer.parseInt(Main.opcion(args, "torres", "4"));
+		int procesos = Math.min(torres, Integer.parseInt(Main.opcion(args, "procesos", String.valueOf(torres))));
+		int personas = Integer.parseInt(Main.opcion(args, "personas", "1000"));
+		double tasa = Double.parseDouble(Main.opcion(args, "tasa", "0.5"));
+		String trafico = Main.opcion(args, "trafico", "uniforme");
+		double transbordos = Double.parseDouble(Main.opcion(args, "transbordos", "0.1"));
+		long msAndar = Long.parseLong(Main.opcion(args, "ms-andar", "60000"));
+		String despacho = Main.opcion(args, "despacho", "libre");
+		long semilla = Long.parseLong(Main.opcion(args, "semilla", "1"));
+		if (msAndar <= 0) {
+			throw new IllegalArgumentException("--ms-andar debe ser positivo: " + msAndar);
+		}
+
+		// Cada torre recibe su edificio como texto .properties
+		String archivos = Main.opcion(args, "edificio", null);
+		List<String> edificios = new ArrayList<>();
+		if (archivos != null) {
+			for (String archivo : archivos.split(",")) {
+				edificios.add(Files.readString(Path.of(archivo), StandardCharsets.UTF_8));
+			}
+		} else {
+			edificios.add("plantas=" + Main.opcion(args, "plantas", String.valueOf(ControladorEdificio.PLANTAS))
+					+ "\nascensores=" + Main.opcion(args, "ascensores", "2") + "\nms-piso="
+					+ Main.opcion(args, "ms-piso", String.valueOf(Ascensor.MS_POR_PISO)) + "\n");
+		}
+
+		long inicio = System.nanoTime();
+		List<Process> hijos = new ArrayList<>();
+		CanalTramas[] canales = new CanalTramas[torres];
+		ServerSocket local = null;
+		try {
+			// Las torres: en procesos hijos (la torre i en el proceso i % procesos) o aquí
+			int[] puertos = new int[Math.max(1, procesos)];
+			if (procesos == 0) {
+				local = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+				puertos[0] = local.getLocalPort();
+				ServerSocket servidor = local;
+				Thread.ofPlatform().daemon().name("torres").start(() -> {
+					try {
+						NodoTorre.servir(servidor, torres);
+					} catch (IOException e) {
+						System.err.println("Torres locales: " + e);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+			} else {
+				for (int p = 0; p < procesos; p++) {
+					int sesiones = (torres - p + procesos - 1) / procesos;
+					puertos[p] = puertoLibre();
+					hijos.add(lanzar(puertos[p], sesiones));
+				}
+			}
+			for (int i = 0; i < torres; i++) {
+				int p = procesos == 0 ? 0 : i % procesos;
+				canales[i] = conectar(puertos[p], procesos == 0 ? null : hijos.get(p));
+			}
+
+			for (int i = 0; i < torres; i++) {
+				int torre = i;
+				canales[i].enviar(NodoTorre.CONFIGURAR, NodoTorre.cuerpo(out -> {
+					out.writeInt(torre);
+					out.writeInt(torres);
+					out.writeUTF(edificios.get(torre % edificios.size()));
+					out.writeUTF(despacho);
+					out.writeUTF(trafico);
+					out.writeDouble(tasa);
+					out.writeInt(personas);
+					out.writeLong(semilla);
+					out.writeDouble(transbordos);
+					out.writeLong(msAndar);
+				}));
+			}
+			for (int i = 0; i < torres; i++) {
+				respuesta(canales[i], i);
+			}
+
+			int ventanas = simular(canales, msAndar);
+
+			// Resultados de todas las torres
+			MetricasViaje metricas = new MetricasViaje();
+			List<Long> puertaAPuerta = new ArrayList<>();
+			long[][] ocupados = new long[torres][];
+			int[] viajesTorre = new int[torres];
+			long duracion = 0;
+			for (CanalTramas canal : canales) {
+				canal.enviar(NodoTorre.TERMINAR, new byte[0]);
+			}
+			for (int i = 0; i < torres; i++) {
+				DataInputStream in = respuesta(canales[i], i);
+				duracion = Math.max(duracion, in.readLong());
+				viajesTorre[i] = in.readInt();
+				for (int j = 0; j < viajesTorre[i]; j++) {
+					metricas.viaje(in.readLong(), in.readLong());
+				}
+				int n = in.readInt();
+				for (int j = 0; j < n; j++) {
+					puertaAPuerta.add(in.readLong());
+				}
+				ocupados[i] = new long[in.readInt()];
+				for (int j = 0; j < ocupados[i].length; j++) {
+					ocupados[i][j] = in.readLong();
+				}
+			}
+			long msReales = (System.nanoTime() - inicio) / 1_000_000;
+
+			System.out.println(String.format(
+					"torres=%d procesos=%d personas=%d trafico=%s tasa=%s/s transbordos=%s ms-andar=%d despacho=%s semilla=%d%s",
+					torres, procesos, personas * torres, trafico, tasa, transbordos, msAndar, despacho, semilla,
+					archivos == null ? "" : " edificio=" + archivos));
+			System.out.print(metricas.resumen(duracion));
+			long[] transbordados = puertaAPuerta.stream().mapToLong(Long::longValue).sorted().toArray();
+			// De puerta a puerta: desde que llama en su torre hasta que baja en la otra
+			System.out.println("transbordos: " + transbordados.length);
+			System.out.print(MetricasViaje.linea("total (s)", transbordados));
+			for (int i = 0; i < torres; i++) {
+				StringBuilder sb = new StringBuilder(String.format("torre %d: %d viajes, utilización:", i, viajesTorre[i]));
+				for (int j = 0; j < ocupados[i].length; j++) {
+					sb.append(String.format(" A%d=%.0f%%", j,
+							duracion == 0 ? 0 : Math.min(1, (double) ocupados[i][j] / duracion) * 100));
+				}
+				System.out.println(sb);
+			}
+			System.out.println("ventanas: " + ventanas + ", tiempo real: " + msReales + " ms");
+		} finally {
+			for (CanalTramas canal : canales) {
+				if (canal != null) {
+					canal.close();
+				}
+			}
+			if (local != null) {
+				local.close();
+			}
+			for (Process hijo : hijos) {
+				if (!hijo.waitFor(5, TimeUnit.SECONDS)) {
+					hijo.destroyForcibly();
+				}
+			}
+		}
+	}
+
+	// Avanza todas las torres ventana a ventana hasta que no queda nada por
+	// simular en ninguna ni nadie andando entre ellas. Devuelve cuántas ventanas
+	private static int simular(CanalTramas[] canales, long msAndar) throws IOException {
+		int torres = canales.length;
+		List<List<long[]>> entregas = new ArrayList<>(); // por torre: {llegada, inicio}
+		for (int i = 0; i < torres; i++) {
+			entregas.add(new ArrayList<>());
+		}
+		long desde = 0;
+		int ventanas = 0;
+		while (true) {
+			long hasta = desde + msAndar;
+			for (int i = 0; i < torres; i++) {
+				List<long[]> llegan = entregas.get(i);
+				canales[i].enviar(NodoTorre.AVANZAR, NodoTorre.cuerpo(out -> {
+					out.writeLong(hasta);
+					out.writeInt(llegan.size());
+					for (long[] llegada : llegan) {
+						out.writeLong(llegada[0]);
+						out.writeLong(llegada[1]);
+					}
+				}));
+				llegan.clear();
+			}
+			ventanas++;
+
+			// Las torres simulan a la vez; se recogen en orden para que el reparto
+			// (y con él el resultado) no dependa de cuál termina antes
+			long proximo = Long.MAX_VALUE;
+			boolean andando = false;
+			for (int i = 0; i < torres; i++) {
+				DataInputStream in = respuesta(canales[i], i);
+				proximo = Math.min(proximo, in.readLong());
+				int salen = in.readInt();
+				for (int j = 0; j < salen; j++) {
+					int destino = in.readInt();
+					entregas.get(destino).add(new long[] { in.readLong(), in.readLong() });
+					andando = true;
+				}
+			}
+			if (!andando && proximo == Long.MAX_VALUE) {
+				return ventanas;
+			}
+			// Si nadie va de una torre a otra, se salta hasta el siguiente evento
+			desde = andando ? hasta : Math.max(hasta, proximo);
+		}
+	}
+
+	private static DataInputStream respuesta(CanalTramas canal, int torre) throws IOException {
+		CanalTramas.Trama trama = canal.recibir();
+		if (trama == null) {
+			throw new IOException("La torre " + torre + " ha cerrado la conexión (ver su salida de errores)");
+		}
+		return new DataInputStream(new ByteArrayInputStream(trama.cuerpo()));
+	}
+
+	private static Process lanzar(int puerto, int sesiones) throws IOException {
+		String java = ProcessHandle.current().info().command().orElse("java");
+		List<String> orden = new ArrayList<>(List.of(java));
+		String modulos = System.getProperty("jdk.module.path");
+		if (modulos != null) {
+			orden.addAll(Arrays.asList("-p", modulos, "-m",
+					NodoTorre.class.getModule().getName() + "/" + NodoTorre.class.getName()));
+		} else {
+			orden.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), NodoTorre.class.getName()));
+		}
+		orden.add("--puerto=" + puerto);
+		orden.add("--sesiones=" + sesiones);
+		return new ProcessBuilder(orden).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+
+	private static int puertoLibre() throws IOException {
+		try (ServerSocket libre = new ServerSocket(0)) {
+			return libre.getLocalPort();
+		}
+	}
+
+	// Espera a que el proceso de la torre escuche (o a que muera)
+	private static CanalTramas conectar(int puerto, Process proceso) throws IOException, InterruptedException {
+		InetSocketAddress direccion = new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto);
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (true) {
+			Socket socket = new Socket();
+			try {
+				socket.connect(direccion);
+				return new CanalTramas(socket);
+			} catch (IOException e) {
+				socket.close();
+				if (System.nanoTime() > limite || (proceso != null && !proceso.isAlive())) {
+					throw new IOException("La torre del puerto " + puerto + " no ha arrancado", e);
+				}
+				Thread.sleep(50);
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package Ejercicio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Ejecución sin ventana: lanza una simulación completa con los parámetros de la
+// línea de comandos, espera a que terminen todos los viajes e imprime un informe.
+// Con la misma semilla (y el motor de eventos) el resultado es siempre el mismo,
+// así que sirve para comparar estrategias de despacho o cambios de concurrencia.
+//
+// Uso: SimulacionPorLotes --ascensores=2 --plantas=21 --personas=100 --tasa=0
+//                         --semilla=1 --motor=eventos|hilos --despacho=libre
+//                         --hilos=plataforma|virtuales --ms-piso=500 --log=apagado
+//                         --edificio=fichero.properties
+//                         --trafico=uniforme|subida|bajada|comida|entrepisos
+//                         --curva=0:0.5,600:3,1200:0.5 --traza=llegadas.csv
+//                         --diario=simulacion.diario
+//
+// Con --edificio, plantas, ascensores y sus características salen del fichero
+// (ver ConfiguracionEdificio) y se ignoran --ascensores, --plantas y --ms-piso.
+//
+// --tasa son llegadas por segundo (proceso de Poisson); con 0 cada persona llega
+// entre 0.5 y 2 s después del inicio, como en Main.
+//
+// Con --trafico las personas las va generando un GeneradorTrafico según llegan,
+// con el reparto de viajes del perfil (ver PerfilTrafico) y su curva de tasa
+// con pico en --tasa (1/s si no se da), alargada hasta unas --personas llegadas.
+// --curva cambia la forma por una propia (segundo:llegadas por segundo, en línea
+// recta entre puntos; se acaba en el último). --traza reproduce un CSV de
+// llegadas (ver TrazaTrafico) en lugar de generarlas.
+//
+// --diario graba todos los eventos en binario, sea cual sea --log, para rehacer
+// después el informe o el log con ReproductorDiario.
+//
+// Con -Dejercicio.instrumentacion=true se añade al informe la contención de
+// cada familia de locks y la duración de las operaciones (ver Instrumentacion).
+public class SimulacionPorLotes {
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		String archivo = Main.opcion(args, "edificio", null);
+		ConfiguracionEdificio edificio;
+		if (archivo != null) {
+			edificio = ConfiguracionEdificio.cargar(Path.of(archivo));
+		} else {
+			edificio = ConfiguracionEdificio.uniforme(
+					Integer.parseInt(Main.opcion(args, "plantas", String.valueOf(ControladorEdificio.PLANTAS))),
+					ControladorEdificio.PERSONAS_TOTALES, Integer.parseInt(Main.opcion(args, "ascensores", "2")),
+					Long.parseLong(Main.opcion(args, "ms-piso", String.valueOf(Ascensor.MS_POR_PISO))));
+		}
+		int personas = Integer.parseInt(Main.opcion(args, "personas", String.valueOf(edificio.getPersonas())));
+		double tasa = Double.parseDouble(Main.opcion(args, "tasa", "0"));
+		long semilla = Long.parseLong(Main.opcion(args, "semilla", "1"));
+		String motor = Main.opcion(args, "motor", "eventos");
+		String despacho = Main.opcion(args, "despacho", "libre");
+		ModoHilos hilos = ModoHilos.porNombre(Main.opcion(args, "hilos", "plataforma"));
+		RegistroSimulacion registro = new RegistroSimulacion(NivelRegistro.porNombre(Main.opcion(args, "log", "apagado")));
+
+		String trafico = Main.opcion(args, "trafico", null);
+		String curva = Main.opcion(args, "curva", null);
+		String traza = Main.opcion(args, "traza", null);
+		String archivoDiario = Main.opcion(args, "diario", null);
+
+		ControladorEdificio controlador = edificio.crearControlador(DispatchStrategy.porNombre(despacho), registro);
+		DiarioSimulacion diario = null;
+		if (archivoDiario != null) {
+			diario = new DiarioSimulacion(Path.of(archivoDiario), edificio.getPlantas(), edificio.getAscensores().size(),
+					controlador::ahoraMs);
+			registro.setDiario(diario);
+		}
+
+		// De dónde salen las personas: una traza, un generador de tráfico (ambos sobre
+		// la marcha) o, como siempre, todas creadas antes de empezar
+		SplittableRandom rand = new SplittableRandom(semilla);
+		Iterator<Persona> llegadas;
+		boolean sobreLaMarcha = traza != null || trafico != null || curva != null;
+		String descripcion;
+		TrazaTrafico lectorTraza = null;
+		if (traza != null) {
+			lectorTraza = new TrazaTrafico(controlador, Path.of(traza));
+			llegadas = lectorTraza;
+			descripcion = "traza=" + traza;
+		} else if (trafico != null || curva != null) {
+			PerfilTrafico perfil = PerfilTrafico.porNombre(trafico == null ? "uniforme" : trafico);
+			double pico = tasa > 0 ? tasa : 1;
+			llegadas = (curva != null)
+					? new GeneradorTrafico(controlador, perfil, GeneradorTrafico.leerCurva(curva), personas, rand)
+					: GeneradorTrafico.perfil(controlador, perfil, pico, personas, rand);
+			descripcion = "trafico=" + perfil.name().toLowerCase() + (curva != null ? " curva=" + curva : " tasa=" + pico + "/s");
+		} else {
+			Persona[] lista = new Persona[personas];
+			long llegada = 0;
+			for (int i = 0; i < personas; i++) {
+				long retraso = -1;
+				if (tasa > 0) {
+					// Separación exponencial entre llegadas consecutivas
+					llegada += (long) (-Math.log(1 - rand.nextDouble()) / tasa * 1000);
+					retraso = llegada;
+				}
+				lista[i] = new Persona(i + 1, controlador, rand, retraso);
+			}
+			if (!motor.equals("eventos")) {
+				// Los hilos se lanzan en orden de llegada (en eventos el orden de
+				// inserción desempata, así que ahí se deja como estaba)
+				Arrays.sort(lista, Comparator.comparingLong(Persona::getRetraso));
+			}
+			llegadas = Arrays.asList(lista).iterator();
+			descripcion = "tasa=" + (tasa > 0 ? tasa + "/s" : "escalonada");
+		}
+
+		long inicio = System.nanoTime();
+		long duracion;
+		try {
+			if (motor.equals("eventos")) {
+				SimuladorEventos simulador = new SimuladorEventos(controlador);
+				if (sobreLaMarcha) {
+					simulador.añadirLlegadas(llegadas);
+				} else {
+					llegadas.forEachRemaining(simulador::añadirPersona);
+				}
+				duracion = simulador.ejecutar();
+			} else {
+				duracion = ejecutarConHilos(controlador, llegadas, hilos);
+			}
+		} finally {
+			if (lectorTraza != null) {
+				lectorTraza.close();
+			}
+			if (diario != null) {
+				registro.setDiario(null);
+				diario.close();
+			}
+		}
+		long msReales = (System.nanoTime() - inicio) / 1_000_000;
+		registro.cerrar();
+
+		System.out.println(String.format("motor=%s despacho=%s ascensores=%d plantas=%d personas=%d %s semilla=%d%s%s",
+				motor, despacho, edificio.getAscensores().size(), edificio.getPlantas(),
+				controlador.getMetricasViaje().getViajes(), descripcion, semilla,
+				archivo == null ? "" : " edificio=" + archivo, motor.equals("eventos") ? "" : " hilos=" + hilos));
+		System.out.print(controlador.getMetricasViaje().informe(duracion, controlador.getAscensores()));
+		System.out.println("tiempo real: " + msReales + " ms");
+		if (diario != null) {
+			System.out.println("diario: " + diario.getRegistros() + " registros en " + archivoDiario);
+		}
+		System.out.print(Instrumentacion.informe());
+	}
+
+	// Devuelve la duración (ms desde que se creó el controlador) al acabar el último viaje
+	private static long ejecutarConHilos(ControladorEdificio controlador, Iterator<Persona> llegadas, ModoHilos hilos)
+			throws InterruptedException {
+		Ascensor[] ascensores = controlador.getAscensores();
+		ExecutorService poolAscensores = hilos.poolAscensores(ascensores.length);
+		for (Ascensor ascensor : ascensores) {
+			poolAscensores.submit(ascensor);
+		}
+
+		// Cada persona se lanza a su hora (llegan en orden): solo existen los hilos
+		// de quien ya está en el edificio
+		ExecutorService poolPersonas = hilos.poolPersonas();
+		try {
+			while (llegadas.hasNext()) {
+				Persona persona = llegadas.next();
+				long espera = persona.getRetraso() - controlador.ahoraMs();
+				if (espera > 0) {
+					TimeUnit.MILLISECONDS.sleep(espera);
+				}
+				poolPersonas.submit(persona);
+			}
+			poolPersonas.shutdown();
+			poolPersonas.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			return controlador.ahoraMs();
+		} finally {
+			// También si la traza tiene un error a medias. Se espera a los dos pools:
+			// después se cierra el log y nadie debe seguir escribiendo en él
+			poolPersonas.shutdownNow();
+			poolAscensores.shutdownNow();
+			poolPersonas.awaitTermination(1, TimeUnit.SECONDS);
+			poolAscensores.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package Ejercicio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+// Motor de eventos discretos: en vez de hilos que duermen, una cola de prioridad
+// ordenada por un reloj virtual. Ejecuta la misma lógica de Ascensor y
+// ControladorEdificio, pero en un único hilo y sin esperas reales.
+public final class SimuladorEventos {
+
+	private enum TipoEvento {
+		LLEGADA_PERSONA, // una persona llega a su piso de origen y llama
+		PASO_ASCENSOR, // el ascensor ejecuta un ciclo (bajar, subir, decidir)
+		MOVER_ASCENSOR // el ascensor termina de recorrer un piso
+	}
+
+	// La secuencia desempata eventos del mismo instante (orden de inserción)
+	private record Evento(long tiempo, long secuencia, TipoEvento tipo, Persona persona, Ascensor ascensor) {
+	}
+
+	private final ControladorEdificio controlador;
+	private final Ascensor[] ascensores;
+
+	private final PriorityQueue<Evento> cola = new PriorityQueue<>(
+			Comparator.comparingLong(Evento::tiempo).thenComparingLong(Evento::secuencia));
+	private long ahora = 0; // reloj virtual en ms
+	private long secuencia = 0;
+
+	// --- Estado que en modo hilos vive en las pilas de cada hilo ---
+	private final boolean[] ociosos; // ascensor PARADO esperando una llamada
+	private final List<ArrayDeque<Persona>> esperandoEnPiso = new ArrayList<>();
+	private final List<List<Persona>> pasajeros = new ArrayList<>();
+
+	// Fuente de personas que se van sacando según llegan (ver añadirLlegadas)
+	private Iterator<Persona> llegadas;
+	private Persona proximaLlegada;
+
+	// Aviso cada vez que alguien termina su viaje (ver NodoTorre)
+	private Consumer<Persona> alBajar;
+	private boolean iniciado = false;
+
+	private int viajesCompletados = 0;
+
+	public SimuladorEventos(ControladorEdificio controlador) {
+		this.controlador = controlador;
+		this.ascensores = controlador.getAscensores();
+		this.ociosos = new boolean[ascensores.length];
+		for (int i = 0; i < controlador.getPlantas(); i++) {
+			esperandoEnPiso.add(new ArrayDeque<>());
+		}
+		for (int i = 0; i < ascensores.length; i++) {
+			pasajeros.add(new ArrayList<>());
+		}
+		controlador.usarSimulador(this);
+	}
+
+	public void añadirPersona(Persona persona) {
+		programar(persona.getRetraso(), TipoEvento.LLEGADA_PERSONA, persona, null);
+	}
+
+	// Personas de un GeneradorTrafico o una TrazaTrafico, en orden de llegada. En
+	// la cola solo está la próxima: al llegar una se saca la siguiente
+	public void añadirLlegadas(Iterator<Persona> llegadas) {
+		this.llegadas = llegadas;
+		programarSiguienteLlegada();
+	}
+
+	private void programarSiguienteLlegada() {
+		proximaLlegada = llegadas.hasNext() ? llegadas.next() : null;
+		if (proximaLlegada != null) {
+			programar(proximaLlegada.getRetraso(), TipoEvento.LLEGADA_PERSONA, proximaLlegada, null);
+		}
+	}
+
+	public void setAlBajar(Consumer<Persona> alBajar) {
+		this.alBajar = alBajar;
+	}
+
+	// Ejecuta hasta que no quedan eventos. Devuelve el tiempo virtual final (ms)
+	public long ejecutar() {
+		ejecutarHasta(Long.MAX_VALUE);
+		return ahora;
+	}
+
+	// Ejecuta los eventos anteriores a 'limite' (ms virtuales) y se detiene. Se
+	// puede seguir después, añadiendo entre medias personas que lleguen a partir
+	// de 'limite' (así avanza cada torre de SimulacionDistribuida)
+	public void ejecutarHasta(long limite) {
+		if (!iniciado) {
+			iniciado = true;
+			for (Ascensor ascensor : ascensores) {
+				programar(0, TipoEvento.PASO_ASCENSOR, null, ascensor);
+			}
+		}
+
+		while (!cola.isEmpty() && cola.peek().tiempo() < limite) {
+			Evento evento = cola.poll();
+			ahora = evento.tiempo();
+			switch (evento.tipo()) {
+			case LLEGADA_PERSONA -> {
+				if (evento.persona() == proximaLlegada) {
+					programarSiguienteLlegada();
+				}
+				llegadaPersona(evento.persona());
+			}
+			case PASO_ASCENSOR -> pasoAscensor(evento.ascensor());
+			case MOVER_ASCENSOR -> moverAscensor(evento.ascensor());
+			}
+		}
+	}
+
+	// Instante del siguiente evento pendiente, o Long.MAX_VALUE si no queda ninguno
+	public long getProximoEvento() {
+		return cola.isEmpty() ? Long.MAX_VALUE : cola.peek().tiempo();
+	}
+
+	// --- Manejadores de eventos ---
+
+	private void llegadaPersona(Persona persona) {
+		int piso = persona.getPisoOrigen();
+		persona.llegar();
+		controlador.registrarLlamada(persona, piso, persona.getDireccion());
+
+		// Igual que en modo hilos: si ya hay un ascensor aquí en mi sentido, entro
+		for (Ascensor ascensor : ascensores) {
+			long estado = ascensor.getEstadoEmpaquetado();
+			if (EstadoAscensor.piso(estado) == piso && EstadoAscensor.sentido(estado) == persona.getDireccion()
+					&& controlador.puedeSubir(ascensor, piso, persona) && ascensor.ocuparPlaza()) {
+				subir(persona, ascensor);
+				return;
+			}
+		}
+		esperandoEnPiso.get(piso).add(persona);
+	}
+
+	private void pasoAscensor(Ascensor ascensor) {
+		int id = ascensor.getIdAscensor();
+		ociosos[id] = false;
+
+		if (ascensor.paso() != Direccion.PARADO) {
+			programar(ahora + ascensor.msProximoTramo(), TipoEvento.MOVER_ASCENSOR, null, ascensor);
+		} else {
+			controlador.getRegistro().registrar(TipoRegistro.ASCENSOR_PARADO, id, ascensor.getPisoActual());
+			// En modo hilos esperarNuevaLlamada() volvería enseguida si quedan llamadas;
+			// aquí se reintenta un piso más tarde para no girar en el mismo instante
+			if (controlador.hayLlamadasPara(ascensor)) {
+				programar(ahora + ascensor.getMsPorPiso(), TipoEvento.PASO_ASCENSOR, null, ascensor);
+			} else {
+				ociosos[id] = true;
+			}
+		}
+	}
+
+	private void moverAscensor(Ascensor ascensor) {
+		ascensor.avanzarPiso();
+
+		// Bajan los que llegan a su destino (antes de subir nadie, como bajarPersonas)
+		int piso = ascensor.getPisoActual();
+		Iterator<Persona> it = pasajeros.get(ascensor.getIdAscensor()).iterator();
+		while (it.hasNext()) {
+			Persona persona = it.next();
+			if (persona.getPisoDestino() == piso) {
+				it.remove();
+				persona.bajarDe(ascensor);
+				viajesCompletados++;
+				if (alBajar != null) {
+					alBajar.accept(persona);
+				}
+			}
+		}
+		pasoAscensor(ascensor);
+	}
+
+	// Llamado desde ControladorEdificio.notificarLlegadaAscensor()
+	void embarcarPasajeros(Ascensor ascensor, int piso) {
+		Direccion sentido = ascensor.getSentido();
+		Persona quedaFuera = null; // alguien de mi sentido que no ha podido subir
+
+		Iterator<Persona> it = esperandoEnPiso.get(piso).iterator();
+		while (it.hasNext()) {
+			Persona persona = it.next();
+			if (persona.getDireccion() != sentido) {
+				continue;
+			}
+			// Con zonas, solo sube quien va a un piso en el que este ascensor para (y
+			// con despacho por destino, quien tiene asignado este ascensor)
+			if (!controlador.puedeSubir(ascensor, piso, persona)) {
+				if (quedaFuera == null) {
+					quedaFuera = persona;
+				}
+			} else if (ascensor.ocuparPlaza()) {
+				it.remove();
+				subir(persona, ascensor);
+			} else {
+				if (quedaFuera == null) {
+					quedaFuera = persona;
+				}
+				if (controlador.isPorPasajero()) {
+					controlador.reasignarPasajero(persona); // lleno: pasa a otro ascensor
+				}
+			}
+		}
+
+		// Los que se quedan fuera vuelven a pulsar el botón
+		if (quedaFuera != null) {
+			controlador.hacerLlamada(piso, sentido, quedaFuera.getPisoDestino());
+		}
+	}
+
+	private void subir(Persona persona, Ascensor ascensor) {
+		controlador.getRegistro().registrar(TipoRegistro.PERSONA_ENTRA, persona.getNumero(), ascensor.getIdAscensor(),
+				persona.getPisoOrigen());
+		controlador.olvidarPasajero(persona);
+		pasajeros.get(ascensor.getIdAscensor()).add(persona);
+		persona.subirA(ascensor);
+	}
+
+	// Equivalente al signalAll de hayNuevasLlamadas: todos los parados se despiertan
+	// (llamado desde ControladorEdificio.hacerLlamada())
+	void despertarOciosos() {
+		for (Ascensor ascensor : ascensores) {
+			int id = ascensor.getIdAscensor();
+			if (ociosos[id]) {
+				ociosos[id] = false;
+				programar(ahora, TipoEvento.PASO_ASCENSOR, null, ascensor);
+			}
+		}
+	}
+
+	private void programar(long tiempo, TipoEvento tipo, Persona persona, Ascensor ascensor) {
+		cola.add(new Evento(tiempo, secuencia++, tipo, persona, ascensor));
+	}
+
+	// --- Getters ---
+	public long getAhora() {
+		return ahora;
+	}
+
+	public int getViajesCompletados() {
+		return viajesCompletados;
+	}
+}
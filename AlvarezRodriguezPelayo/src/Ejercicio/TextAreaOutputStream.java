@@ -1,48 +1,167 @@
 package Ejercicio;
 
-import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
 
 public class TextAreaOutputStream extends OutputStream {
 
+	// Como mucho un append al JTextArea por "frame" (~60 por segundo)
+	private static final int MS_POR_FRAME = 16;
+	private static final int MAX_LINEAS_POR_DEFECTO = 10_000;
+
 	private final JTextArea textArea;
-	private final StringBuilder sb = new StringBuilder();
+	private final int maxLineas;
+
+	// Texto ya decodificado pendiente de pasar al JTextArea. Lo llenan los hilos que
+	// escriben y lo vacía el Timer en el EDT.
+	private final ReentrantLock lock = new ReentrantLock();
+	private StringBuilder pendiente = new StringBuilder();
+
+	// Decodificación UTF-8 por bloques: un carácter multibyte puede quedar partido
+	// entre dos write(), así que los bytes sobrantes se quedan en 'entrada'
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer entrada = ByteBuffer.allocate(8192);
+	private final CharBuffer salida = CharBuffer.allocate(8192);
+
+	private final Timer timer;
 
 	public TextAreaOutputStream(final JTextArea textArea) {
+		this(textArea, MAX_LINEAS_POR_DEFECTO);
+	}
+
+	public TextAreaOutputStream(final JTextArea textArea, int maxLineas) {
 		this.textArea = textArea;
+		this.maxLineas = maxLineas;
+		// IMPORTANTE: el Timer de Swing dispara en el Hilo de Despacho de Eventos (EDT)
+		this.timer = new Timer(MS_POR_FRAME, e -> volcar(false));
+		this.timer.start();
 	}
 
 	@Override
 	public void flush() {
+		// Nada: el Timer vuelca lo pendiente en el siguiente frame
 	}
 
+	// Lo que quede (la última línea sin salto y los bytes que guarda el decoder)
+	// también llega al JTextArea
 	@Override
 	public void close() {
+		lock.lock();
+		try {
+			entrada.flip();
+			CoderResult resultado;
+			do {
+				resultado = decoder.decode(entrada, salida, true);
+				salida.flip();
+				acumular(salida);
+				salida.clear();
+			} while (resultado.isOverflow());
+			do {
+				resultado = decoder.flush(salida);
+				salida.flip();
+				acumular(salida);
+				salida.clear();
+			} while (resultado.isOverflow());
+			entrada.clear();
+		} finally {
+			lock.unlock();
+		}
+		timer.stop();
+		SwingUtilities.invokeLater(() -> volcar(true));
 	}
 
 	@Override
-	public void write(int b) throws IOException {
-		// Ignora retornos de carro
-		if (b == '\r')
-			return;
+	public void write(int b) {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
 
-		// Si es un salto de línea, añade el texto acumulado al JTextArea
-		if (b == '\n') {
-			final String text = sb.toString() + "\n";
-
-			// IMPORTANTE: Actualiza la GUI en el Hilo de Despacho de Eventos (EDT)
-			SwingUtilities.invokeLater(() -> {
-				textArea.append(text);
-				// Mueve el cursor al final para auto-scroll
-				textArea.setCaretPosition(textArea.getDocument().getLength());
-			});
-			sb.setLength(0); // Limpia el buffer
-		} else {
-			// Acumula caracteres
-			sb.append((char) b);
+	@Override
+	public void write(byte[] b, int off, int len) {
+		lock.lock();
+		try {
+			while (len > 0) {
+				int n = Math.min(len, entrada.remaining());
+				entrada.put(b, off, n);
+				off += n;
+				len -= n;
+
+				entrada.flip();
+				CoderResult resultado;
+				do {
+					resultado = decoder.decode(entrada, salida, false);
+					salida.flip();
+					acumular(salida);
+					salida.clear();
+				} while (resultado.isOverflow());
+				entrada.compact(); // deja al principio los bytes de un carácter a medias
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void acumular(CharBuffer texto) {
+		while (texto.hasRemaining()) {
+			char c = texto.get();
+			// Ignora retornos de carro
+			if (c != '\r') {
+				pendiente.append(c);
+			}
+		}
+	}
+
+	// En el EDT: un único append con todas las líneas completas acumuladas (con
+	// 'todo', también la última aunque no tenga salto)
+	private void volcar(boolean todo) {
+		String texto;
+		lock.lock();
+		try {
+			int finUltimaLinea = todo ? pendiente.length() : pendiente.lastIndexOf("\n") + 1;
+			if (finUltimaLinea == 0) {
+				return; // aún no hay ninguna línea completa
+			}
+			// Si en un frame llegan más de maxLineas, las más antiguas ni pasan por el
+			// documento: recortar() las borraría enseguida
+			int inicio = finUltimaLinea;
+			for (int lineas = 0; inicio > 0 && lineas < maxLineas; lineas++) {
+				inicio = pendiente.lastIndexOf("\n", inicio - 2) + 1;
+			}
+			texto = pendiente.substring(inicio, finUltimaLinea);
+			StringBuilder resto = new StringBuilder(Math.max(16, pendiente.length() - finUltimaLinea));
+			resto.append(pendiente, finUltimaLinea, pendiente.length());
+			pendiente = resto;
+		} finally {
+			lock.unlock();
+		}
+
+		textArea.append(texto);
+		recortar();
+		// Mueve el cursor al final para auto-scroll
+		textArea.setCaretPosition(textArea.getDocument().getLength());
+	}
+
+	// Documento acotado: se borran las líneas más antiguas para no crecer sin límite
+	private void recortar() {
+		int sobrantes = textArea.getLineCount() - maxLineas;
+		if (sobrantes <= 0) {
+			return;
+		}
+		try {
+			textArea.replaceRange("", 0, textArea.getLineStartOffset(sobrantes));
+		} catch (BadLocationException e) {
+			// No puede pasar: 'sobrantes' es menor que el número de líneas
 		}
 	}
 }
@@ -0,0 +1,58 @@
+package Ejercicio;
+
+// Cada tipo de línea del log. En el camino caliente solo se guardan el tipo y
+// unos pocos enteros; el texto lo monta el hilo del log (ver formatear).
+public enum TipoRegistro {
+	MENSAJE(NivelRegistro.INFO), // texto libre (raro: pausa, reanudar...)
+	ASCENSOR_PARADO(NivelRegistro.DETALLE), // ascensor, piso
+	ASCENSOR_LLEGA(NivelRegistro.DETALLE), // ascensor, piso, sentido
+	ASCENSOR_DEJA(NivelRegistro.INFO), // ascensor, piso
+	ASCENSOR_RECOGE(NivelRegistro.INFO), // ascensor, piso, sentido
+	PERSONA_LLAMA(NivelRegistro.INFO), // persona, piso, dirección
+	PERSONA_ENTRA(NivelRegistro.INFO), // persona, ascensor, piso
+	PERSONA_DESTINO(NivelRegistro.INFO), // persona, origen, destino, ascensor
+	PERSONA_BAJA(NivelRegistro.INFO); // persona, piso
+
+	private static final Direccion[] DIRECCIONES = Direccion.values();
+
+	final NivelRegistro nivel;
+
+	TipoRegistro(NivelRegistro nivel) {
+		this.nivel = nivel;
+	}
+
+	// Mismo texto que antes daban los String.format, pero sin formatear
+	void formatear(StringBuilder sb, int a, int b, int c, int d, String texto) {
+		switch (this) {
+		case MENSAJE -> sb.append(texto);
+		case ASCENSOR_PARADO -> sb.append("Ascensor ").append(a).append(" PARADO en piso ").append(b)
+				.append(". Esperando llamadas.");
+		case ASCENSOR_LLEGA -> sb.append("... Ascensor ").append(a).append(" llega a piso ").append(b).append(" (")
+				.append(DIRECCIONES[c]).append(") ...");
+		case ASCENSOR_DEJA -> sb.append("Ascensor ").append(a).append(" deja pasajeros en piso ").append(b);
+		case ASCENSOR_RECOGE -> sb.append("Ascensor ").append(a).append(" para en ").append(b)
+				.append(" a recoger gente (").append(DIRECCIONES[c]).append(')');
+		case PERSONA_LLAMA -> persona(sb.append(">> "), a).append(" llama ascensor en piso ").append(b)
+				.append(" para ").append(DIRECCIONES[c]);
+		case PERSONA_ENTRA -> persona(sb.append(">> "), a).append(" entra en ascensor ").append(b)
+				.append(" en piso ").append(c);
+		case PERSONA_DESTINO -> persona(sb.append(">>>> "), a).append(" (piso ").append(b)
+				.append(") selecciona destino ").append(c).append(" en ascensor ").append(d);
+		case PERSONA_BAJA -> persona(sb.append("<<<< "), a).append(" baja del ascensor en piso ").append(b)
+				.append(". (Destino cumplido)");
+		}
+		sb.append('\n');
+	}
+
+	// Equivale a String.format("P%03d", numero)
+	private static StringBuilder persona(StringBuilder sb, int numero) {
+		sb.append('P');
+		if (numero < 100) {
+			sb.append('0');
+		}
+		if (numero < 10) {
+			sb.append('0');
+		}
+		return sb.append(numero);
+	}
+}
@@ -0,0 +1,115 @@
+package Ejercicio;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Reproduce una traza de llegadas real desde un CSV, una persona por línea:
+//
+//   # ms,origen,destino
+//   0,0,12
+//   850,0,7
+//   1320,15,0
+//
+// Los ms son desde el inicio de la simulación y no pueden ir hacia atrás. Se
+// ignoran las líneas vacías, las que empiezan por # y una cabecera al principio.
+// El fichero se lee según se van necesitando personas, no de golpe.
+public class TrazaTrafico implements Iterator<Persona>, Closeable {
+
+	private final ControladorEdificio controlador;
+	private final Path archivo;
+	private final BufferedReader lector;
+	private int linea = 0;
+	private int leidas = 0;
+	private boolean empezada = false; // ya se ha visto la primera línea con contenido
+	private long ultimaLlegada = 0;
+	private Persona siguiente;
+
+	public TrazaTrafico(ControladorEdificio controlador, Path archivo) throws IOException {
+		this.controlador = controlador;
+		this.archivo = archivo;
+		this.lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (siguiente == null) {
+			try {
+				siguiente = leer();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error leyendo la traza " + archivo, e);
+			}
+		}
+		return siguiente != null;
+	}
+
+	@Override
+	public Persona next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Persona persona = siguiente;
+		siguiente = null;
+		return persona;
+	}
+
+	@Override
+	public void close() throws IOException {
+		lector.close();
+	}
+
+	private Persona leer() throws IOException {
+		String texto;
+		while ((texto = lector.readLine()) != null) {
+			linea++;
+			texto = texto.strip();
+			if (texto.isEmpty() || texto.startsWith("#")) {
+				continue;
+			}
+			String[] campos = texto.split(",");
+			if (!empezada) {
+				empezada = true;
+				if (!campos[0].strip().matches("\\d+")) {
+					continue; // cabecera
+				}
+			}
+			if (campos.length != 3) {
+				throw error("se esperaban 3 campos (ms,origen,destino)");
+			}
+			long llegada;
+			int origen;
+			int destino;
+			try {
+				llegada = Long.parseLong(campos[0].strip());
+				origen = Integer.parseInt(campos[1].strip());
+				destino = Integer.parseInt(campos[2].strip());
+			} catch (NumberFormatException e) {
+				throw error("número no válido");
+			}
+			if (llegada < ultimaLlegada) {
+				throw error("la llegada (" + llegada + " ms) es anterior a la de la línea de antes");
+			}
+			int plantas = controlador.getPlantas();
+			if (origen < 0 || origen >= plantas || destino < 0 || destino >= plantas || origen == destino) {
+				throw error("viaje no válido " + origen + " -> " + destino + " en un edificio de " + plantas + " plantas");
+			}
+			if (!controlador.hayAscensorPara(origen, destino)) {
+				throw error("ningún ascensor hace el viaje " + origen + " -> " + destino);
+			}
+			ultimaLlegada = llegada;
+			leidas++;
+			return new Persona(leidas, controlador, origen, destino, llegada);
+		}
+		return null;
+	}
+
+	private IllegalArgumentException error(String motivo) {
+		return new IllegalArgumentException(archivo + ", línea " + linea + ": " + motivo);
+	}
+}
@@ -6,4 +6,11 @@
  */
 module AlvarezRodriguezPelayo {
 	requires java.desktop;
+	requires java.management;
+	requires jdk.jfr;
+
+	// Para que JMX pueda leer las métricas del servidor de eco y de la
+	// instrumentación (y JFR registrar sus eventos)
+	exports unidad3.echo to java.management;
+	exports Ejercicio to java.management, jdk.jfr;
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package unidad3.echo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+// Extremo bloqueante del protocolo de tramas de ServicioTramas sobre un Socket:
+// manda y recibe tramas enteras [longitud][id][cuerpo], con las mismas reglas
+// (big-endian, cuerpo de como mucho MAX_CUERPO). Para quien quiere hablar por
+// tramas petición/respuesta sin hacerse el decodificador, p. ej. la simulación
+// distribuida de Ejercicio. No es seguro entre hilos: uno por conexión.
+public class CanalTramas implements Closeable {
+
+	public record Trama(long id, byte[] cuerpo) {
+	}
+
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	public CanalTramas(Socket socket) throws IOException {
+		this.socket = socket;
+		socket.setTcpNoDelay(true);
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), ServicioTramas.TAM_BUFFER));
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), ServicioTramas.TAM_BUFFER));
+	}
+
+	public void enviar(long id, byte[] cuerpo) throws IOException {
+		if (cuerpo.length > ServicioTramas.MAX_CUERPO) {
+			throw new IOException("Trama demasiado grande: " + cuerpo.length + " bytes");
+		}
+		out.writeInt(cuerpo.length);
+		out.writeLong(id);
+		out.write(cuerpo);
+		out.flush();
+	}
+
+	// Bloquea hasta tener una trama completa. Devuelve null si el otro extremo
+	// cierra entre dos tramas; si cierra a media trama es un error
+	public Trama recibir() throws IOException {
+		int longitud;
+		try {
+			longitud = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (longitud < 0 || longitud > ServicioTramas.MAX_CUERPO) {
+			throw new IOException("Longitud de trama no válida: " + longitud);
+		}
+		long id = in.readLong();
+		byte[] cuerpo = new byte[longitud];
+		in.readFully(cuerpo);
+		return new Trama(id, cuerpo);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
@@ -1,23 +1,308 @@
 package unidad3.echo;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
+// Generador de carga para el servidor de eco: abre N conexiones a la vez (un hilo
+// virtual cada una), manda mensajes, lee y comprueba cada eco y al final informa
+// de mensajes/s y de los percentiles de latencia.
+//
+// Uso: EchoClient --host=localhost --puerto=9001 --conexiones=10 --mensajes=1000
+//                 --tam=64 --tasa=0 --protocolo=lineas|tramas --en-vuelo=1
+//
+// --mensajes es por conexión y --tam el tamaño de cada mensaje en bytes (acaba en
+// '\n', así que vale para cualquier modo de Server).
+//
+// --tasa son mensajes/s entre todas las conexiones; con 0 cada conexión manda el
+// siguiente en cuanto recibe el eco del anterior (bucle cerrado). Con tasa fija
+// la latencia se mide desde cuándo TOCABA mandar el mensaje, no desde cuándo se
+// mandó: si el servidor se atasca, los mensajes que "deberían" haber salido
+// mientras tanto cuentan todo el retraso (omisión coordinada). También se
+// imprime la latencia sin corregir para ver la diferencia.
+//
+// Con --protocolo=tramas (Server --modo=tramas) cada mensaje va en una trama
+// con id y cada conexión tiene hasta --en-vuelo mensajes mandados sin respuesta:
+// un hilo manda y otro recoge, emparejando cada respuesta por su id.
 public class EchoClient {
-	public static void main(String[] args) throws UnknownHostException, IOException {
 
-		try (Socket socket = new Socket("10.140.43.200", 9001)) {
-			// Preparamos la salida con 'true' para enviar los datos inmediatamente (autoFlush)
-			PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-			// Obtenemos la IP local que tiene asignada este cliente
-			String miIp = socket.getLocalAddress().getHostAddress();
-			
-			out.println("IP: " + miIp);
-			System.out.println("Se ha enviado la IP (" + miIp + ") al servidor correctamente.");
+	// El id de una trama lleva el hueco de la ventana en los bits bajos y el número
+	// de mensaje en el resto
+	static final int BITS_HUECO = 20;
+
+	public static void main(String[] args) throws Exception {
+		String host = Server.opcion(args, "host", "localhost");
+		int puerto = Integer.parseInt(Server.opcion(args, "puerto", "9001"));
+		int conexiones = Integer.parseInt(Server.opcion(args, "conexiones", "10"));
+		int mensajes = Integer.parseInt(Server.opcion(args, "mensajes", "1000"));
+		int tam = Integer.parseInt(Server.opcion(args, "tam", "64"));
+		double tasa = Double.parseDouble(Server.opcion(args, "tasa", "0"));
+		boolean tramas = Server.opcion(args, "protocolo", "lineas").equals("tramas");
+		int enVuelo = tramas ? Integer.parseInt(Server.opcion(args, "en-vuelo", "1")) : 1;
+		if (enVuelo < 1 || enVuelo > 1 << BITS_HUECO) {
+			throw new IllegalArgumentException("--en-vuelo debe estar entre 1 y " + (1 << BITS_HUECO));
+		}
+		if (tam < 9) {
+			throw new IllegalArgumentException("--tam debe ser al menos 9 (número de mensaje y '\\n')");
+		}
+
+		// Cada conexión manda uno cada 'intervalo' ns; se desfasan para no ir a la vez
+		long intervalo = tasa > 0 ? (long) (conexiones * 1e9 / tasa) : 0;
+		List<Future<Carga>> cargas = new ArrayList<>(conexiones);
+		long inicio = System.nanoTime();
+		try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < conexiones; i++) {
+				long primero = inicio + intervalo * i / conexiones;
+				Carga carga = tramas ? new CargaTramas(host, puerto, mensajes, tam, intervalo, primero, enVuelo)
+						: new CargaLineas(host, puerto, mensajes, tam, intervalo, primero);
+				cargas.add(hilos.submit(carga::ejecutar));
+			}
+		}
+		long duracion = System.nanoTime() - inicio;
+
+		HistogramaLatencias corregida = new HistogramaLatencias();
+		HistogramaLatencias sinCorregir = new HistogramaLatencias();
+		long errores = 0;
+		int caidas = 0;
+		for (Future<Carga> futuro : cargas) {
+			Carga carga = futuro.get();
+			corregida.sumar(carga.corregida);
+			sinCorregir.sumar(carga.sinCorregir);
+			errores += carga.errores;
+			if (carga.fallo != null) {
+				caidas++;
+				if (caidas == 1) {
+					System.err.println("Conexión caída: " + carga.fallo);
+				}
+			}
+		}
+
+		System.out.println(String.format("destino=%s:%d conexiones=%d mensajes=%d tam=%d %s %s", host, puerto,
+				conexiones, mensajes, tam, tasa > 0 ? "tasa=" + tasa + "/s" : "bucle cerrado",
+				tramas ? "tramas en-vuelo=" + enVuelo : "lineas"));
+		System.out.println(String.format("ecos correctos: %d  erróneos: %d  conexiones caídas: %d", corregida.getTotal(),
+				errores, caidas));
+		System.out.println(String.format("duración: %.2f s  mensajes/s: %.0f", duracion / 1e9,
+				corregida.getTotal() / (duracion / 1e9)));
+		imprimir(tasa > 0 ? "latencia (corregida)" : "latencia", corregida);
+		if (tasa > 0) {
+			imprimir("latencia (sin corregir)", sinCorregir);
+		}
+	}
+
+	private static void imprimir(String titulo, HistogramaLatencias h) {
+		System.out.println(String.format("%s us: p50=%.1f p99=%.1f p999=%.1f max=%.1f", titulo, h.percentil(50) / 1e3,
+				h.percentil(99) / 1e3, h.percentil(99.9) / 1e3, h.getMaximo() / 1e3));
+	}
+
+	// Lo que hace y mide una conexión. Los histogramas y contadores solo los toca
+	// el hilo que llama a ejecutar(), hasta que termina.
+	private abstract static class Carga {
+		final String host;
+		final int puerto;
+		final int mensajes;
+		final int tam;
+		final long intervalo;
+		final long primero;
+		final HistogramaLatencias corregida = new HistogramaLatencias();
+		final HistogramaLatencias sinCorregir = new HistogramaLatencias();
+		long errores = 0;
+		IOException fallo;
+
+		Carga(String host, int puerto, int mensajes, int tam, long intervalo, long primero) {
+			this.host = host;
+			this.puerto = puerto;
+			this.mensajes = mensajes;
+			this.tam = tam;
+			this.intervalo = intervalo;
+			this.primero = primero;
+		}
+
+		Carga ejecutar() {
+			try (Socket socket = new Socket(host, puerto)) {
+				socket.setTcpNoDelay(true);
+				sesion(socket);
+			} catch (IOException | InterruptedException e) {
+				fallo = e instanceof IOException io ? io : new IOException(e);
+			}
+			return this;
+		}
+
+		abstract void sesion(Socket socket) throws IOException, InterruptedException;
+
+		// Cuándo le toca salir al mensaje i (con tasa fija) y espera hasta entonces
+		long esperarTurno(int i) {
+			long previsto = primero + i * intervalo;
+			if (intervalo > 0) {
+				long espera;
+				while ((espera = previsto - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(espera);
+				}
+			}
+			return previsto;
+		}
+
+		void registrar(long previsto, long envio, long fin) {
+			sinCorregir.registrar(fin - envio);
+			corregida.registrar(intervalo > 0 ? fin - previsto : fin - envio);
+		}
+
+		byte[] nuevoMensaje() {
+			byte[] mensaje = new byte[tam];
+			Arrays.fill(mensaje, (byte) 'x');
+			mensaje[tam - 1] = '\n';
+			return mensaje;
+		}
+
+		// Número de mensaje en hexadecimal al principio, para que cada eco sea distinto
+		static void numerar(byte[] mensaje, int i) {
+			for (int d = 7; d >= 0; d--) {
+				mensaje[d] = (byte) Character.forDigit(i & 0xF, 16);
+				i >>>= 4;
+			}
+		}
+	}
+
+	// Petición-respuesta: el siguiente mensaje sale cuando ha vuelto el anterior
+	private static final class CargaLineas extends Carga {
+		final byte[] mensaje;
+		final byte[] eco;
+
+		CargaLineas(String host, int puerto, int mensajes, int tam, long intervalo, long primero) {
+			super(host, puerto, mensajes, tam, intervalo, primero);
+			this.mensaje = nuevoMensaje();
+			this.eco = new byte[tam];
+		}
+
+		@Override
+		void sesion(Socket socket) throws IOException {
+			OutputStream out = socket.getOutputStream();
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			for (int i = 0; i < mensajes; i++) {
+				long previsto = esperarTurno(i);
+				numerar(mensaje, i);
+				long envio = System.nanoTime();
+				out.write(mensaje);
+				try {
+					in.readFully(eco);
+				} catch (EOFException e) {
+					throw new IOException("El servidor cerró la conexión tras " + i + " mensajes");
+				}
+				long fin = System.nanoTime();
+				if (!Arrays.equals(mensaje, eco)) {
+					errores++;
+					continue;
+				}
+				registrar(previsto, envio, fin);
+			}
+		}
+	}
+
+	// Tramas en vuelo: este hilo recoge las respuestas y otro (virtual) manda en
+	// cuanto hay hueco en la ventana. Cada hueco guarda cuándo salió su mensaje.
+	private static final class CargaTramas extends Carga {
+		final int enVuelo;
+		final BlockingQueue<Integer> huecos;
+		final AtomicLongArray envios;
+		final AtomicLongArray ids;
+
+		CargaTramas(String host, int puerto, int mensajes, int tam, long intervalo, long primero, int enVuelo) {
+			super(host, puerto, mensajes, tam, intervalo, primero);
+			this.enVuelo = enVuelo;
+			this.huecos = new ArrayBlockingQueue<>(enVuelo);
+			for (int i = 0; i < enVuelo; i++) {
+				huecos.add(i);
+			}
+			this.envios = new AtomicLongArray(enVuelo);
+			this.ids = new AtomicLongArray(enVuelo);
+		}
+
+		@Override
+		void sesion(Socket socket) throws IOException, InterruptedException {
+			Thread emisor = Thread.ofVirtual().start(() -> mandar(socket));
+			try {
+				recibir(socket);
+			} finally {
+				socket.close(); // si falla el receptor, el emisor no se queda bloqueado
+				emisor.join();
+			}
+		}
+
+		private void mandar(Socket socket) {
+			byte[] trama = new byte[ServicioTramas.CABECERA + tam];
+			byte[] mensaje = nuevoMensaje();
+			ByteBuffer cabecera = ByteBuffer.wrap(trama, 0, ServicioTramas.CABECERA);
+			try {
+				OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+				for (int i = 0; i < mensajes; i++) {
+					esperarTurno(i);
+					Integer hueco = huecos.poll();
+					if (hueco == null) {
+						out.flush(); // ventana llena: que salga lo acumulado antes de esperar
+						hueco = huecos.take();
+					}
+					long id = ((long) i << BITS_HUECO) | hueco;
+					cabecera.putInt(0, tam).putLong(Integer.BYTES, id);
+					numerar(mensaje, i);
+					System.arraycopy(mensaje, 0, trama, ServicioTramas.CABECERA, tam);
+					ids.set(hueco, id);
+					envios.set(hueco, System.nanoTime());
+					out.write(trama);
+					if (intervalo > 0 || huecos.isEmpty()) {
+						out.flush();
+					}
+				}
+				out.flush();
+			} catch (IOException | InterruptedException e) {
+				// El receptor se entera al cerrarse el socket o quedarse sin respuestas
+			}
+		}
+
+		private void recibir(Socket socket) throws IOException {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+			byte[] eco = new byte[tam];
+			byte[] esperado = nuevoMensaje();
+			for (int n = 0; n < mensajes; n++) {
+				int longitud;
+				long id;
+				try {
+					longitud = in.readInt();
+					id = in.readLong();
+				} catch (EOFException e) {
+					throw new IOException("El servidor cerró la conexión tras " + n + " respuestas");
+				}
+				if (longitud != tam) {
+					throw new IOException("Respuesta con longitud " + longitud + " en vez de " + tam);
+				}
+				in.readFully(eco);
+				long fin = System.nanoTime();
+				int hueco = (int) (id & ((1 << BITS_HUECO) - 1));
+				int i = (int) (id >>> BITS_HUECO);
+				numerar(esperado, i);
+				if (hueco >= enVuelo || ids.get(hueco) != id || !Arrays.equals(eco, esperado)) {
+					errores++;
+				} else {
+					registrar(primero + i * intervalo, envios.get(hueco), fin);
+				}
+				if (hueco < enVuelo) {
+					huecos.add(hueco);
+				}
+			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package unidad3.echo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Los mismos cubos que HistogramaLatencias, pero se puede registrar desde muchos
+// hilos a la vez sin lock (un incremento atómico por muestra). Para los
+// percentiles se saca una foto(): si se sigue registrando mientras tanto, la
+// foto puede no cuadrar por alguna muestra, nada más.
+public class HistogramaConcurrente {
+
+	private final AtomicLongArray cuenta = new AtomicLongArray(HistogramaLatencias.CUBOS);
+	private final LongAdder suma = new LongAdder();
+	private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+	public void registrar(long ns) {
+		if (ns < 0) {
+			ns = 0;
+		}
+		cuenta.incrementAndGet(HistogramaLatencias.indice(ns));
+		suma.add(ns);
+		maximo.accumulate(ns);
+	}
+
+	// Vuelve a cero (lo que se registre a la vez puede perderse o quedarse)
+	public void reiniciar() {
+		for (int i = 0; i < HistogramaLatencias.CUBOS; i++) {
+			cuenta.set(i, 0);
+		}
+		suma.reset();
+		maximo.reset();
+	}
+
+	public long getSuma() {
+		return suma.sum();
+	}
+
+	public HistogramaLatencias foto() {
+		HistogramaLatencias foto = new HistogramaLatencias();
+		long max = maximo.get();
+		for (int i = 0; i < HistogramaLatencias.CUBOS; i++) {
+			long n = cuenta.get(i);
+			if (n > 0) {
+				foto.sumarCubo(i, n, Math.min(max, HistogramaLatencias.limiteSuperior(i)));
+			}
+		}
+		return foto;
+	}
+}
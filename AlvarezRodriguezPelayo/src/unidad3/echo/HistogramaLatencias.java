@@ -0,0 +1,85 @@
+package unidad3.echo;
+
+// Histograma de latencias (en ns) de tamaño fijo: por debajo de 128 ns un cubo
+// por valor y a partir de ahí 64 cubos por cada potencia de 2, así que el error
+// de un percentil es como mucho de 1/64 (~1.6 %) sea cual sea la escala. Registrar
+// es O(1) y no reserva memoria; no es seguro entre hilos (uno por conexión y se
+// juntan al final con sumar()).
+public class HistogramaLatencias {
+
+	private static final int LINEAL = 128;
+	private static final int SUBCUBOS = 64;
+	static final int CUBOS = LINEAL + (63 - 6) * SUBCUBOS;
+
+	private final long[] cuenta = new long[CUBOS];
+	private long total = 0;
+	private long maximo = 0;
+
+	public void registrar(long ns) {
+		if (ns < 0) {
+			ns = 0;
+		}
+		cuenta[indice(ns)]++;
+		total++;
+		if (ns > maximo) {
+			maximo = ns;
+		}
+	}
+
+	public void sumar(HistogramaLatencias otro) {
+		for (int i = 0; i < CUBOS; i++) {
+			cuenta[i] += otro.cuenta[i];
+		}
+		total += otro.total;
+		maximo = Math.max(maximo, otro.maximo);
+	}
+
+	// Suma n valores de un cubo ya calculado (para HistogramaConcurrente.foto())
+	void sumarCubo(int indice, long n, long maximoCubo) {
+		cuenta[indice] += n;
+		total += n;
+		maximo = Math.max(maximo, maximoCubo);
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getMaximo() {
+		return maximo;
+	}
+
+	// Límite superior del cubo en el que cae el percentil p (0-100)
+	public long percentil(double p) {
+		if (total == 0) {
+			return 0;
+		}
+		long objetivo = Math.max(1, (long) Math.ceil(total * p / 100));
+		long acumulado = 0;
+		for (int i = 0; i < CUBOS; i++) {
+			acumulado += cuenta[i];
+			if (acumulado >= objetivo) {
+				return Math.min(limiteSuperior(i), maximo);
+			}
+		}
+		return maximo;
+	}
+
+	static int indice(long ns) {
+		if (ns < LINEAL) {
+			return (int) ns;
+		}
+		int desplazamiento = (63 - Long.numberOfLeadingZeros(ns)) - 6; // >= 1
+		int sub = (int) (ns >>> desplazamiento); // entre 64 y 127
+		return LINEAL + (desplazamiento - 1) * SUBCUBOS + (sub - SUBCUBOS);
+	}
+
+	static long limiteSuperior(int indice) {
+		if (indice < LINEAL) {
+			return indice;
+		}
+		int desplazamiento = (indice - LINEAL) / SUBCUBOS + 1;
+		long sub = (indice - LINEAL) % SUBCUBOS + SUBCUBOS;
+		return ((sub + 1) << desplazamiento) - 1;
+	}
+}
@@ -0,0 +1,232 @@
+package unidad3.echo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Contadores del servidor de eco y registro de las conexiones abiertas, que es
+// lo que permite cerrar las inactivas y drenar al apagar.
+//
+// Cada conexión se da de alta con abrir() y anota lo que lee y escribe; un hilo
+// vigilante cierra desde fuera las que llevan más de 'timeoutMs' sin mover un
+// byte. Cerrar el socket desbloquea el read() o write() en el que esté parado su
+// hilo, así que un cliente que ni manda ni recoge no retiene un hilo del pool
+// para siempre (SO_TIMEOUT solo cubriría las lecturas y no vale para canales).
+//
+// LongAdder para los bytes: se suman desde todos los hilos en cada lectura.
+public class MetricasServidor implements MetricasServidorMBean {
+
+	private final long timeoutMs;
+	private final Set<Conexion> abiertas = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger activas = new AtomicInteger();
+	private final LongAdder aceptadas = new LongAdder();
+	private final LongAdder bytesEntrada = new LongAdder();
+	private final LongAdder bytesSalida = new LongAdder();
+	private final LongAdder cerradasPorInactividad = new LongAdder();
+	private final LongAdder errores = new LongAdder();
+	private volatile IntSupplier cola = () -> 0;
+	private ScheduledExecutorService vigilante;
+
+	// Para la tasa de aceptación: se calcula entre dos consultas seguidas
+	private long nanosUltimaConsulta = System.nanoTime();
+	private long aceptadasUltimaConsulta = 0;
+	private double aceptadasPorSegundo = 0;
+
+	// timeoutMs = 0: sin límite de inactividad (y sin hilo vigilante)
+	public MetricasServidor(long timeoutMs) {
+		this.timeoutMs = timeoutMs;
+		if (timeoutMs > 0) {
+			vigilante = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread hilo = new Thread(r, "eco-vigilante");
+				hilo.setDaemon(true);
+				return hilo;
+			});
+			long periodo = Math.max(10, timeoutMs / 4);
+			vigilante.scheduleAtFixedRate(this::cerrarInactivas, periodo, periodo, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// Publica las métricas en el MBeanServer de la plataforma (jconsole, jcmd...)
+	public void registrarJmx(String modo) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("unidad3.echo:type=Servidor,modo=" + modo));
+		} catch (JMException e) {
+			System.err.println("No se han podido publicar las métricas por JMX: " + e);
+		}
+	}
+
+	// Cuántas conexiones aceptadas esperan a que alguien las atienda
+	void setCola(IntSupplier cola) {
+		this.cola = cola;
+	}
+
+	// --- Conexiones ---
+
+	// La llama quien acepta; abrir() la llama quien la atiende (con el pool puede
+	// pasar un rato en la cola entre una y otra)
+	void aceptada() {
+		aceptadas.increment();
+	}
+
+	Conexion abrir(Closeable recurso) {
+		Conexion conexion = new Conexion(recurso);
+		activas.incrementAndGet();
+		abiertas.add(conexion);
+		return conexion;
+	}
+
+	void error() {
+		errores.increment();
+	}
+
+	private void cerrarInactivas() {
+		long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		for (Conexion conexion : abiertas) {
+			if (conexion.ultimaActividad - limite < 0 && conexion.cerrar(true)) {
+				cerradasPorInactividad.increment();
+			}
+		}
+	}
+
+	// Espera a que se cierren solas todas las conexiones; false si se acaba el plazo
+	public boolean esperarCierre(long ms) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+		while (activas.get() > 0) {
+			if (System.nanoTime() - limite > 0) {
+				return false;
+			}
+			Thread.sleep(20);
+		}
+		return true;
+	}
+
+	// Cierra a la fuerza las que queden y para el vigilante
+	public void cerrarTodas() {
+		if (vigilante != null) {
+			vigilante.shutdownNow();
+		}
+		for (Conexion conexion : abiertas) {
+			conexion.cerrar(true);
+		}
+	}
+
+	// --- Consultas ---
+
+	@Override
+	public int getConexionesActivas() {
+		return activas.get();
+	}
+
+	@Override
+	public long getAceptadas() {
+		return aceptadas.sum();
+	}
+
+	// Media desde la consulta anterior (si ha pasado al menos un segundo)
+	@Override
+	public synchronized double getAceptadasPorSegundo() {
+		long ahora = System.nanoTime();
+		long nanos = ahora - nanosUltimaConsulta;
+		if (nanos >= 1_000_000_000L) {
+			long total = aceptadas.sum();
+			aceptadasPorSegundo = (total - aceptadasUltimaConsulta) * 1e9 / nanos;
+			aceptadasUltimaConsulta = total;
+			nanosUltimaConsulta = ahora;
+		}
+		return aceptadasPorSegundo;
+	}
+
+	@Override
+	public int getColaEspera() {
+		return cola.getAsInt();
+	}
+
+	@Override
+	public long getBytesEntrada() {
+		return bytesEntrada.sum();
+	}
+
+	@Override
+	public long getBytesSalida() {
+		return bytesSalida.sum();
+	}
+
+	@Override
+	public long getCerradasPorInactividad() {
+		return cerradasPorInactividad.sum();
+	}
+
+	@Override
+	public long getErrores() {
+		return errores.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"activas=%d aceptadas=%d cola=%d entrada=%d B salida=%d B cerradas por inactividad=%d errores=%d",
+				getConexionesActivas(), getAceptadas(), getColaEspera(), getBytesEntrada(), getBytesSalida(),
+				getCerradasPorInactividad(), getErrores());
+	}
+
+	// Una conexión abierta. leidos()/escritos() los llama su hilo; el vigilante
+	// solo lee ultimaActividad y, si toca, la cierra.
+	final class Conexion {
+		private final Closeable recurso;
+		private final AtomicBoolean cerrada = new AtomicBoolean();
+		private volatile long ultimaActividad = System.nanoTime();
+		private volatile boolean desdeFuera = false;
+
+		private Conexion(Closeable recurso) {
+			this.recurso = recurso;
+		}
+
+		void leidos(int n) {
+			bytesEntrada.add(n);
+			ultimaActividad = System.nanoTime();
+		}
+
+		void escritos(int n) {
+			bytesSalida.add(n);
+			ultimaActividad = System.nanoTime();
+		}
+
+		// La ha cerrado el vigilante o el apagado: el error que vea su hilo no es un fallo
+		boolean cerradaDesdeFuera() {
+			return desdeFuera;
+		}
+
+		// Idempotente: la cierran su hilo al acabar, el vigilante o el apagado
+		boolean cerrar() {
+			return cerrar(false);
+		}
+
+		private boolean cerrar(boolean desdeFuera) {
+			if (!cerrada.compareAndSet(false, true)) {
+				return false;
+			}
+			this.desdeFuera = desdeFuera; // antes de cerrar, para que su hilo lo vea
+			abiertas.remove(this);
+			activas.decrementAndGet();
+			try {
+				recurso.close();
+			} catch (IOException e) {
+				// Ya estaba cerrada
+			}
+			return true;
+		}
+	}
+}
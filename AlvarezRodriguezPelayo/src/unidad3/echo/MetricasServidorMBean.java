@@ -0,0 +1,21 @@
+package unidad3.echo;
+
+// Lo que publica MetricasServidor por JMX (unidad3.echo:type=Servidor,modo=...)
+public interface MetricasServidorMBean {
+
+	int getConexionesActivas();
+
+	long getAceptadas();
+
+	double getAceptadasPorSegundo();
+
+	int getColaEspera();
+
+	long getBytesEntrada();
+
+	long getBytesSalida();
+
+	long getCerradasPorInactividad();
+
+	long getErrores();
+}
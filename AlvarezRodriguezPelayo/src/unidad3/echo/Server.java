@@ -1,24 +1,91 @@
 package unidad3.echo;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+// Uso: Server --modo=pool|virtuales|crudo|tramas|nio --puerto=9001 --max-conexiones=10000
+//              --bucles=<nº de CPUs> --timeout-ms=30000 --drenaje-ms=5000
+//  - pool: un hilo del pool (20) por conexión, con ServiceTask (el original)
+//  - virtuales: un hilo virtual por conexión, hasta --max-conexiones (ServidorVirtual)
+//  - crudo: como virtuales, pero con eco binario por canales (ServicioCrudo)
+//  - tramas: como virtuales, con el protocolo de tramas con id (ServicioTramas)
+//  - nio: unos pocos bucles de eventos con Selector para todas (ServidorNio)
+//
+// Una conexión que pasa --timeout-ms sin mandar ni recoger nada se cierra (0 =
+// nunca). Al apagar (Ctrl+C, kill) se deja de aceptar, se da a las conexiones
+// abiertas hasta --drenaje-ms para terminar y se cierran las que queden.
+//
+// Las métricas (MetricasServidor) se ven en vivo por JMX con jconsole o
+// cualquier otro cliente: MBean unidad3.echo:type=Servidor,modo=<modo>.
 public class Server {
 
-	public static void main(String[] args) throws IOException {
-		try (ServerSocket serverSocket = new ServerSocket(9001)) {
-			ExecutorService service = Executors.newFixedThreadPool(20);
-			while (true) {
-				Socket socket = serverSocket.accept(); // el metodo accept se queda esperando a una peticion de conexión
-				// Si retorna un cliente se ha conectado
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int puerto = Integer.parseInt(opcion(args, "puerto", "9001"));
+		String modo = opcion(args, "modo", "pool");
+		long timeoutMs = Long.parseLong(opcion(args, "timeout-ms", "30000"));
+		long drenajeMs = Long.parseLong(opcion(args, "drenaje-ms", "5000"));
+		MetricasServidor metricas = new MetricasServidor(timeoutMs);
 
-				service.submit(new ServiceTask(socket)::run);
-			}
+		ServidorEco servidor;
+		String descripcion;
+		switch (modo) {
+		case "pool" -> {
+			servidor = new ServidorPool(puerto, metricas);
+			descripcion = "pool de " + ServidorPool.HILOS + " hilos";
+		}
+		case "virtuales", "crudo", "tramas" -> {
+			int max = Integer.parseInt(opcion(args, "max-conexiones", "10000"));
+			ServidorVirtual.Servicio servicio = switch (modo) {
+			case "crudo" -> ServidorVirtual.Servicio.CRUDO;
+			case "tramas" -> ServidorVirtual.Servicio.TRAMAS;
+			default -> ServidorVirtual.Servicio.ECO;
+			};
+			servidor = new ServidorVirtual(puerto, max, servicio, metricas);
+			descripcion = "hilos virtuales" + (modo.equals("virtuales") ? "" : ", " + modo) + ", máx. " + max
+					+ " conexiones";
+		}
+		case "nio" -> {
+			int bucles = Integer.parseInt(opcion(args, "bucles", String.valueOf(Runtime.getRuntime().availableProcessors())));
+			servidor = new ServidorNio(puerto, bucles, metricas);
+			descripcion = "nio, " + bucles + " bucles";
+		}
+		default -> throw new IllegalArgumentException("Modo de servidor desconocido: " + modo);
+		}
+		metricas.registrarJmx(modo);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> apagar(servidor, drenajeMs), "eco-apagado"));
+
+		System.out.println("Servidor de eco (" + descripcion + ") en el puerto " + servidor.getPuerto());
+		servidor.ejecutar();
+	}
 
+	// Gancho de apagado: no puede lanzar nada, así que solo informa
+	private static void apagar(ServidorEco servidor, long drenajeMs) {
+		MetricasServidor metricas = servidor.getMetricas();
+		try {
+			servidor.dejarDeAceptar();
+			int abiertas = metricas.getConexionesActivas();
+			if (abiertas > 0) {
+				System.out.println("Apagando: esperando a " + abiertas + " conexiones (" + drenajeMs + " ms como mucho)");
+			}
+			if (!metricas.esperarCierre(drenajeMs)) {
+				System.out.println("Se cierran " + metricas.getConexionesActivas() + " conexiones sin terminar");
+			}
+			servidor.close();
+		} catch (IOException e) {
+			System.err.println("Error al apagar: " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		System.out.println("Servidor parado: " + metricas);
+	}
 
+	// Lee una opción de la forma --clave=valor de la línea de comandos
+	static String opcion(String[] args, String clave, String porDefecto) {
+		String prefijo = "--" + clave + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefijo)) {
+				return arg.substring(prefijo.length());
+			}
+		}
+		return porDefecto;
 	}
 }
@@ -1,36 +1,59 @@
 package unidad3.echo;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 
 public class ServiceTask {
-	
+
+	static final int TAM_BUFFER = 64 * 1024;
+
 	private final Socket socket;
+	private final MetricasServidor metricas;
 
 	public ServiceTask(Socket socket) {
+		this(socket, new MetricasServidor(0));
+	}
+
+	public ServiceTask(Socket socket, MetricasServidor metricas) {
 		super();
 		this.socket = socket;
+		this.metricas = metricas;
 	}
-	
+
+	// Copia bytes tal cual, sin pasarlos a String ni partir en líneas. Lo leído se
+	// acumula en el buffer de salida y se vacía en cuanto no queda nada más por
+	// leer: un cliente interactivo recibe su eco al momento y uno que manda un
+	// chorro de datos se lleva escrituras grandes, no una por línea.
+	//
+	// Si el vigilante de MetricasServidor (o el apagado) la cierra desde fuera, el
+	// read() o write() bloqueado salta con una excepción que no cuenta como error.
 	public void run() {
-		try(socket) {
-//			InputStream in = socket.getInputStream();
-			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-//			OutputStream out = socket.getOutputStream();
-			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
-			String linea;
-			while ((linea = in.readLine()) != null) {
-				out.println(linea);
+		MetricasServidor.Conexion conexion = metricas.abrir(socket);
+		try {
+			socket.setTcpNoDelay(true);
+			InputStream in = socket.getInputStream();
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream(), TAM_BUFFER);
+			byte[] buffer = new byte[TAM_BUFFER];
+			int leidos;
+			while ((leidos = in.read(buffer)) != -1) {
+				conexion.leidos(leidos);
+				out.write(buffer, 0, leidos);
+				conexion.escritos(leidos);
+				if (in.available() == 0) {
+					out.flush(); // el cliente espera su eco antes de mandar más
+				}
 			}
+			out.flush();
 		} catch (IOException e) {
-			e.printStackTrace();
+			if (!conexion.cerradaDesdeFuera()) {
+				metricas.error();
+			}
+		} finally {
+			conexion.cerrar();
 		}
-		
-		
 	}
 
 }
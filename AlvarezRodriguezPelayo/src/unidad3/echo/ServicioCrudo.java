@@ -0,0 +1,61 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Eco "crudo" (binario) para volúmenes grandes: los bytes van del canal de
+// lectura al de escritura del socket sin pasar por streams ni por el heap.
+//
+// Cada conexión tiene un único buffer directo, reservado al empezar y partido en
+// dos mitades: la lectura reparte en las dos (scatter) y la escritura las
+// vacía juntas (gather), así que un read y un write mueven el buffer entero. La
+// memoria por conexión es fija y no se crea basura por mensaje, por muchos GB
+// que pasen.
+public class ServicioCrudo implements Runnable {
+
+	static final int TAM_BUFFER = 64 * 1024;
+
+	private final SocketChannel canal;
+	private final MetricasServidor metricas;
+
+	public ServicioCrudo(SocketChannel canal) {
+		this(canal, new MetricasServidor(0));
+	}
+
+	public ServicioCrudo(SocketChannel canal, MetricasServidor metricas) {
+		this.canal = canal;
+		this.metricas = metricas;
+	}
+
+	@Override
+	public void run() {
+		MetricasServidor.Conexion conexion = metricas.abrir(canal);
+		try {
+			canal.configureBlocking(true);
+			canal.socket().setTcpNoDelay(true);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(TAM_BUFFER);
+			ByteBuffer[] mitades = {
+					buffer.slice(0, TAM_BUFFER / 2),
+					buffer.slice(TAM_BUFFER / 2, TAM_BUFFER / 2) };
+			long leidos;
+			while ((leidos = canal.read(mitades)) != -1) {
+				conexion.leidos((int) leidos);
+				mitades[0].flip();
+				mitades[1].flip();
+				// Con el canal bloqueante write() puede escribir solo una parte
+				while (mitades[0].hasRemaining() || mitades[1].hasRemaining()) {
+					conexion.escritos((int) canal.write(mitades));
+				}
+				mitades[0].clear();
+				mitades[1].clear();
+			}
+		} catch (IOException e) {
+			if (!conexion.cerradaDesdeFuera()) {
+				metricas.error();
+			}
+		} finally {
+			conexion.cerrar();
+		}
+	}
+}
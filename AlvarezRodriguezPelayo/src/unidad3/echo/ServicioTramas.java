@@ -0,0 +1,105 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Eco con tramas: cada mensaje va con una cabecera de longitud e identificador,
+//
+//   [longitud: int][id: long][cuerpo: 'longitud' bytes]   (big-endian)
+//
+// y la respuesta es la misma trama con el mismo id. Como cada respuesta lleva su
+// id, el cliente puede tener muchas peticiones en vuelo en la misma conexión
+// (pipelining) y emparejarlas aunque llegaran en otro orden; este servidor
+// contesta en orden, pero el protocolo no lo exige.
+//
+// Las tramas se decodifican sobre la marcha en el único buffer directo de la
+// conexión: una cabecera puede llegar partida entre dos lecturas y un cuerpo
+// puede ser mayor que el buffer, así que no se reserva nada por trama. Solo se
+// devuelven bytes de tramas ya validadas; una longitud negativa o mayor que
+// MAX_CUERPO es un error de protocolo y se cierra la conexión.
+public class ServicioTramas implements Runnable {
+
+	static final int CABECERA = Integer.BYTES + Long.BYTES;
+	static final int MAX_CUERPO = 16 * 1024 * 1024;
+	static final int TAM_BUFFER = 64 * 1024;
+
+	private final SocketChannel canal;
+	private final MetricasServidor metricas;
+
+	// Estado del decodificador: bytes del cuerpo de la trama actual que faltan por
+	// pasar (0 = lo siguiente es una cabecera)
+	private int restanteCuerpo = 0;
+	private long tramas = 0;
+
+	public ServicioTramas(SocketChannel canal) {
+		this(canal, new MetricasServidor(0));
+	}
+
+	public ServicioTramas(SocketChannel canal, MetricasServidor metricas) {
+		this.canal = canal;
+		this.metricas = metricas;
+	}
+
+	public long getTramas() {
+		return tramas;
+	}
+
+	@Override
+	public void run() {
+		MetricasServidor.Conexion conexion = metricas.abrir(canal);
+		try {
+			canal.configureBlocking(true);
+			canal.socket().setTcpNoDelay(true);
+			ByteBuffer entrada = ByteBuffer.allocateDirect(TAM_BUFFER);
+			// Otra vista del mismo buffer para escribir lo ya decodificado
+			ByteBuffer salida = entrada.duplicate();
+			int leidos;
+			while ((leidos = canal.read(entrada)) != -1) {
+				conexion.leidos(leidos);
+				entrada.flip();
+				int decodificado = decodificar(entrada);
+				salida.limit(decodificado).position(0);
+				while (salida.hasRemaining()) {
+					conexion.escritos(canal.write(salida));
+				}
+				// Lo que queda (una cabecera a medias) pasa al principio del buffer
+				entrada.position(decodificado);
+				entrada.compact();
+			}
+		} catch (IOException e) {
+			if (!conexion.cerradaDesdeFuera()) {
+				metricas.error();
+			}
+		} finally {
+			conexion.cerrar();
+		}
+	}
+
+	// Avanza por las tramas completas o a medias del buffer y devuelve hasta dónde
+	// se puede devolver: todo menos una cabecera incompleta al final
+	private int decodificar(ByteBuffer buffer) throws IOException {
+		int posicion = buffer.position();
+		int limite = buffer.limit();
+		while (posicion < limite) {
+			if (restanteCuerpo > 0) {
+				int paso = Math.min(restanteCuerpo, limite - posicion);
+				posicion += paso;
+				restanteCuerpo -= paso;
+				continue;
+			}
+			if (limite - posicion < CABECERA) {
+				break;
+			}
+			int longitud = buffer.getInt(posicion);
+			if (longitud < 0 || longitud > MAX_CUERPO) {
+				throw new IOException("Trama con longitud no válida: " + longitud);
+			}
+			// El id (getLong(posicion + 4)) no hace falta: la respuesta lo repite tal cual
+			posicion += CABECERA;
+			restanteCuerpo = longitud;
+			tramas++;
+		}
+		return posicion;
+	}
+}
@@ -0,0 +1,18 @@
+package unidad3.echo;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Lo común a los modos de Server. El apagado es en dos pasos: dejarDeAceptar()
+// y, cuando se han ido las conexiones (o se acaba el plazo), close().
+public interface ServidorEco extends Closeable {
+
+	int getPuerto();
+
+	MetricasServidor getMetricas();
+
+	// Acepta en el hilo que llama hasta que se deja de aceptar
+	void ejecutar() throws IOException, InterruptedException;
+
+	void dejarDeAceptar() throws IOException;
+}
@@ -0,0 +1,268 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Servidor de eco con NIO: en vez de un hilo por conexión, unos pocos hilos
+// (bucles de eventos) con un Selector cada uno atienden a todas las conexiones.
+// Una conexión sin datos pendientes no tiene buffer: los buffers (directos) se
+// sacan de un pool del bucle al leer y se devuelven en cuanto se ha escrito
+// todo, así que miles de conexiones ociosas apenas ocupan memoria.
+public class ServidorNio implements ServidorEco {
+
+	static final int TAM_BUFFER = 16 * 1024;
+	// Buffers libres que guarda cada bucle como mucho (el resto, al GC)
+	static final int MAX_BUFFERS_LIBRES = 1024;
+
+	private final ServerSocketChannel servidor;
+	private final BucleEventos[] bucles;
+	private final MetricasServidor metricas;
+	private volatile boolean cerrado = false;
+
+	public ServidorNio(int puerto, int numBucles) throws IOException {
+		this(puerto, numBucles, new MetricasServidor(0));
+	}
+
+	public ServidorNio(int puerto, int numBucles, MetricasServidor metricas) throws IOException {
+		this.metricas = metricas;
+		this.servidor = ServerSocketChannel.open();
+		servidor.bind(new InetSocketAddress(puerto), 1024);
+		this.bucles = new BucleEventos[numBucles];
+		for (int i = 0; i < numBucles; i++) {
+			bucles[i] = new BucleEventos();
+			Thread hilo = new Thread(bucles[i], "eco-nio-" + i);
+			hilo.setDaemon(true);
+			hilo.start();
+		}
+		metricas.setCola(() -> {
+			int pendientes = 0;
+			for (BucleEventos bucle : bucles) {
+				pendientes += bucle.nuevas.size();
+			}
+			return pendientes;
+		});
+	}
+
+	@Override
+	public int getPuerto() {
+		return servidor.socket().getLocalPort();
+	}
+
+	@Override
+	public MetricasServidor getMetricas() {
+		return metricas;
+	}
+
+	// Acepta conexiones en el hilo que llama (bloqueante) y las reparte entre los
+	// bucles por turnos. Vuelve cuando se cierra el servidor.
+	@Override
+	public void ejecutar() throws IOException {
+		int siguiente = 0;
+		while (!cerrado) {
+			SocketChannel canal;
+			try {
+				canal = servidor.accept();
+			} catch (ClosedChannelException e) {
+				break;
+			}
+			metricas.aceptada();
+			try {
+				canal.configureBlocking(false);
+				canal.socket().setTcpNoDelay(true);
+			} catch (IOException e) {
+				// Reiniciada nada más aceptarla: se cierra esa y se sigue aceptando
+				metricas.error();
+				cerrarCanal(canal);
+				continue;
+			}
+			bucles[siguiente].registrar(canal);
+			siguiente = (siguiente + 1) % bucles.length;
+		}
+	}
+
+	// Los bucles siguen atendiendo las conexiones que ya tienen
+	@Override
+	public void dejarDeAceptar() throws IOException {
+		servidor.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		cerrado = true;
+		servidor.close();
+		// Cada bucle cierra su Selector y sus conexiones al despertar
+		for (BucleEventos bucle : bucles) {
+			bucle.selector.wakeup();
+		}
+	}
+
+	private static void cerrarCanal(SocketChannel canal) {
+		try {
+			canal.close();
+		} catch (IOException e) {
+			// Ya estaba cerrada
+		}
+	}
+
+	// Estado de cada conexión (el "attachment" de su SelectionKey). Solo lo toca
+	// el hilo de su bucle.
+	private static final class Conexion {
+		final SocketChannel canal;
+		final MetricasServidor.Conexion registro;
+		ByteBuffer buffer; // null si no hay nada pendiente de devolver
+		boolean finEntrada = false; // el cliente ha cerrado su lado de escritura
+
+		Conexion(SocketChannel canal, MetricasServidor.Conexion registro) {
+			this.canal = canal;
+			this.registro = registro;
+		}
+	}
+
+	private final class BucleEventos implements Runnable {
+		private final Selector selector;
+		// Conexiones nuevas que deja el hilo que acepta; el bucle las registra
+		private final Queue<SocketChannel> nuevas = new ConcurrentLinkedQueue<>();
+		// Pool de buffers de este bucle: sin sincronizar, solo lo usa su hilo
+		private final ArrayDeque<ByteBuffer> libres = new ArrayDeque<>();
+
+		BucleEventos() throws IOException {
+			this.selector = Selector.open();
+		}
+
+		void registrar(SocketChannel canal) {
+			nuevas.add(canal);
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!cerrado) {
+					selector.select();
+					SocketChannel canal;
+					while ((canal = nuevas.poll()) != null) {
+						registrarEnSelector(canal);
+					}
+					for (SelectionKey clave : selector.selectedKeys()) {
+						Conexion conexion = (Conexion) clave.attachment();
+						if (!clave.isValid()) {
+							// La ha cerrado el vigilante (desde su hilo) después del select
+							cerrar(clave, conexion);
+							continue;
+						}
+						try {
+							if (clave.isReadable()) {
+								leer(clave, conexion);
+							} else if (clave.isWritable()) {
+								escribir(clave, conexion);
+							}
+						} catch (IOException | CancelledKeyException e) {
+							// Conexión reiniciada por el cliente, cerrada por el vigilante a
+							// medio atender, etc.: solo se cierra esa
+							if (!conexion.registro.cerradaDesdeFuera()) {
+								metricas.error();
+							}
+							cerrar(clave, conexion);
+						}
+					}
+					selector.selectedKeys().clear();
+				}
+			} catch (IOException e) {
+				metricas.error(); // el propio selector: se cierran todas
+			} finally {
+				for (SelectionKey clave : selector.keys()) {
+					cerrar(clave, (Conexion) clave.attachment());
+				}
+				SocketChannel sinRegistrar;
+				while ((sinRegistrar = nuevas.poll()) != null) {
+					cerrarCanal(sinRegistrar);
+				}
+				try {
+					selector.close();
+				} catch (IOException e) {
+					metricas.error();
+				}
+			}
+		}
+
+		private void registrarEnSelector(SocketChannel canal) {
+			// Si el vigilante la cierra, despierta al selector para que suelte el socket ya
+			MetricasServidor.Conexion registro = metricas.abrir(() -> {
+				canal.close();
+				selector.wakeup();
+			});
+			try {
+				canal.register(selector, SelectionKey.OP_READ, new Conexion(canal, registro));
+			} catch (IOException e) {
+				// Cerrada antes de llegar al selector: solo se pierde esa (cerrar() la
+				// descuenta de las activas)
+				if (!registro.cerradaDesdeFuera()) {
+					metricas.error();
+				}
+				registro.cerrar();
+			}
+		}
+
+		private void leer(SelectionKey clave, Conexion conexion) throws IOException {
+			if (conexion.buffer == null) {
+				conexion.buffer = sacarBuffer();
+			}
+			int leidos = conexion.canal.read(conexion.buffer);
+			if (leidos < 0) {
+				conexion.finEntrada = true;
+			} else {
+				conexion.registro.leidos(leidos);
+			}
+			conexion.buffer.flip();
+			escribir(clave, conexion);
+		}
+
+		// Devuelve lo pendiente. Si el cliente no lo recoge todo, se deja de leer de él
+		// (OP_WRITE en vez de OP_READ) hasta que se vacíe: nada de acumular sin límite.
+		private void escribir(SelectionKey clave, Conexion conexion) throws IOException {
+			conexion.registro.escritos(conexion.canal.write(conexion.buffer));
+			if (conexion.buffer.hasRemaining()) {
+				clave.interestOps(SelectionKey.OP_WRITE);
+				return;
+			}
+			devolverBuffer(conexion.buffer);
+			conexion.buffer = null;
+			if (conexion.finEntrada) {
+				cerrar(clave, conexion);
+			} else {
+				clave.interestOps(SelectionKey.OP_READ);
+			}
+		}
+
+		private void cerrar(SelectionKey clave, Conexion conexion) {
+			clave.cancel();
+			if (conexion.buffer != null) {
+				devolverBuffer(conexion.buffer);
+				conexion.buffer = null;
+			}
+			conexion.registro.cerrar();
+		}
+
+		private ByteBuffer sacarBuffer() {
+			ByteBuffer buffer = libres.poll();
+			return buffer != null ? buffer : ByteBuffer.allocateDirect(TAM_BUFFER);
+		}
+
+		private void devolverBuffer(ByteBuffer buffer) {
+			buffer.clear();
+			if (libres.size() < MAX_BUFFERS_LIBRES) {
+				libres.push(buffer);
+			}
+		}
+	}
+}
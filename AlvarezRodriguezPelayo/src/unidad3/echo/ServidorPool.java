@@ -0,0 +1,97 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// El servidor original: un pool fijo de hilos y un ServiceTask por conexión. Lo
+// que no cabe en el pool espera en la cola del executor (se ve en ColaEspera) y
+// un cliente parado retiene su hilo hasta que el vigilante de MetricasServidor
+// lo echa por inactividad.
+public class ServidorPool implements ServidorEco {
+
+	static final int HILOS = 20;
+
+	private final ServerSocket serverSocket;
+	private final ThreadPoolExecutor service;
+	private final MetricasServidor metricas;
+
+	public ServidorPool(int puerto, MetricasServidor metricas) throws IOException {
+		this.serverSocket = new ServerSocket(puerto);
+		this.service = (ThreadPoolExecutor) Executors.newFixedThreadPool(HILOS);
+		this.metricas = metricas;
+		metricas.setCola(() -> service.getQueue().size());
+	}
+
+	@Override
+	public int getPuerto() {
+		return serverSocket.getLocalPort();
+	}
+
+	@Override
+	public MetricasServidor getMetricas() {
+		return metricas;
+	}
+
+	@Override
+	public void ejecutar() throws IOException {
+		while (true) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept(); // el metodo accept se queda esperando a una peticion de conexión
+			} catch (SocketException e) {
+				if (serverSocket.isClosed()) {
+					return;
+				}
+				throw e;
+			}
+			// Si retorna un cliente se ha conectado
+			metricas.aceptada();
+			service.execute(new Atender(socket));
+		}
+	}
+
+	// Las que ya están en la cola se atienden igual; shutdown() no las descarta
+	@Override
+	public void dejarDeAceptar() throws IOException {
+		serverSocket.close();
+		service.shutdown();
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		metricas.cerrarTodas();
+		// Conexiones aceptadas que nadie llegó a atender: se cierran sin servir
+		for (Runnable pendiente : service.shutdownNow()) {
+			try {
+				((Atender) pendiente).socket.close();
+			} catch (IOException e) {
+				// Ya estaba cerrada
+			}
+		}
+		try {
+			service.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Con execute() (no submit) shutdownNow() devuelve estas mismas tareas
+	private final class Atender implements Runnable {
+		final Socket socket;
+
+		Atender(Socket socket) {
+			this.socket = socket;
+		}
+
+		@Override
+		public void run() {
+			new ServiceTask(socket, metricas).run();
+		}
+	}
+}
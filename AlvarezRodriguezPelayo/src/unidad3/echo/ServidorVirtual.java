@@ -0,0 +1,108 @@
+package unidad3.echo;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Servidor de eco con un hilo virtual por conexión: el mismo ServiceTask
+// bloqueante de siempre, pero sin el tope de 20 hilos del pool.
+//
+// El límite de conexiones se aplica ANTES de aceptar: con el máximo abierto no
+// se llama a accept(), así que las conexiones nuevas esperan en la cola del
+// sistema (backlog) y, si se llena, el cliente lo nota al conectar. Con el pool
+// fijo se aceptan todas y se quedan en la cola del executor sin que nadie lo
+// sepa.
+//
+// 'servicio' elige quién atiende cada conexión: ServiceTask, ServicioCrudo (eco
+// binario por canales) o ServicioTramas (protocolo de tramas con id).
+public class ServidorVirtual implements ServidorEco {
+
+	public enum Servicio {
+		ECO, CRUDO, TRAMAS
+	}
+
+	static final int BACKLOG = 1024;
+
+	private final ServerSocketChannel servidor;
+	private final Semaphore conexiones;
+	private final int maxConexiones;
+	private final Servicio servicio;
+	private final MetricasServidor metricas;
+	private final ExecutorService service = Executors.newVirtualThreadPerTaskExecutor();
+
+	public ServidorVirtual(int puerto, int maxConexiones) throws IOException {
+		this(puerto, maxConexiones, Servicio.ECO);
+	}
+
+	public ServidorVirtual(int puerto, int maxConexiones, Servicio servicio) throws IOException {
+		this(puerto, maxConexiones, servicio, new MetricasServidor(0));
+	}
+
+	public ServidorVirtual(int puerto, int maxConexiones, Servicio servicio, MetricasServidor metricas)
+			throws IOException {
+		this.servidor = ServerSocketChannel.open();
+		servidor.bind(new InetSocketAddress(puerto), BACKLOG);
+		this.maxConexiones = maxConexiones;
+		this.servicio = servicio;
+		this.metricas = metricas;
+		this.conexiones = new Semaphore(maxConexiones);
+	}
+
+	@Override
+	public int getPuerto() {
+		return servidor.socket().getLocalPort();
+	}
+
+	public int getConexionesActivas() {
+		return maxConexiones - conexiones.availablePermits();
+	}
+
+	@Override
+	public MetricasServidor getMetricas() {
+		return metricas;
+	}
+
+	// Acepta en el hilo que llama hasta que se cierra el servidor
+	@Override
+	public void ejecutar() throws IOException, InterruptedException {
+		while (true) {
+			conexiones.acquire(); // contrapresión: sin sitio no se acepta a nadie más
+			SocketChannel canal;
+			try {
+				canal = servidor.accept();
+			} catch (ClosedChannelException e) {
+				conexiones.release();
+				return;
+			}
+			metricas.aceptada();
+			service.submit(() -> {
+				try {
+					switch (servicio) {
+					case ECO -> new ServiceTask(canal.socket(), metricas).run();
+					case CRUDO -> new ServicioCrudo(canal, metricas).run();
+					case TRAMAS -> new ServicioTramas(canal, metricas).run();
+					}
+				} finally {
+					conexiones.release();
+				}
+			});
+		}
+	}
+
+	@Override
+	public void dejarDeAceptar() throws IOException {
+		servidor.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		servidor.close();
+		metricas.cerrarTodas();
+		service.shutdownNow();
+	}
+}